@@ -0,0 +1,82 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 orders 건 반영 비용 (한 회원이 한 상품을 1 개씩)
+ * - single: 주문마다 OrderService.order 트랜잭션 한번 (상품 락 + insert + 커밋)
+ * - bulk: OrderService.bulkOrder 트랜잭션 한번 (회원/상품 한번씩 조회, insert 는 jdbc batch)
+ * - 한 번의 호출이 주문 orders 건이므로 초당 주문 수는 처리량 x orders
+ */
+@State(Scope.Benchmark)
+public class BulkOrderBenchmark {
+
+    @Param({"100", "1000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private List<OrderCommand> commands;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/bulk-order",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        Member member = new Member();
+        member.setName("벤치회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = context.getBean(MemberService.class).join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        Long itemId = context.getBean(ItemService.class).saveItem(book);
+
+        commands = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            commands.add(new OrderCommand(memberId, itemId, 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void single(Blackhole blackhole) {
+        for (OrderCommand command : commands) {
+            blackhole.consume(orderService.order(command.getMemberId(), command.getItemId(), command.getCount()));
+        }
+    }
+
+    @Benchmark
+    public List<Long> bulk() {
+        return orderService.bulkOrder(commands);
+    }
+}
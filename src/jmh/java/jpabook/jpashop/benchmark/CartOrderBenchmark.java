@@ -0,0 +1,72 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 장바구니 주문 줄 수(lines)에 따른 주문 지연 (상품 락 한번 + 재고 확인 + flush 한번)
+ * - sample 모드의 p0.99 가 주문 p99
+ */
+@State(Scope.Benchmark)
+public class CartOrderBenchmark {
+
+    @Param({"1", "5", "10", "20", "50"})
+    public int lines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    private Long memberId;
+    private List<OrderLine> orderLines;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/cart-order",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        Member member = new Member();
+        member.setName("벤치회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = context.getBean(MemberService.class).join(member);
+
+        orderLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            Book book = new Book();
+            book.setName("책" + i);
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE);
+            orderLines.add(new OrderLine(context.getBean(ItemService.class).saveItem(book), 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.order(memberId, orderLines);
+    }
+}
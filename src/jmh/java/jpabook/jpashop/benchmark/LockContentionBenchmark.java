@@ -0,0 +1,157 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.support.jdbc.ConnectionLimitingDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품 락 경합 중의 요청 처리 (플랫폼 스레드 vs 가상 스레드)
+ * - 락 보유 스레드가 인기 상품을 PESSIMISTIC_WRITE 로 잡고 있고, 주문 요청 parkedRequests 개가 그 락에서 대기 (락 타임아웃 10초)
+ * - 측정: 그 사이 들어오는 회원 목록 조회(GET /api/v2/members)의 처리량, 지연
+ * - platform: Tomcat 스레드 50개가 락 대기 주문에 모두 묶이면 조회도 Tomcat 대기열에서 기다린다.
+ * - virtual: 요청마다 가상 스레드, JDBC 는 ConnectionLimitingDataSource 로 풀 크기(20)만큼만 (virtual 프로필)
+ * - virtual-ungated: virtual 에서 세마포어만 끈 것 (가상 스레드가 풀 안에서 직접 대기)
+ *   virtual 계열은 Java 21 이상 JVM 에서만 실행된다. (./gradlew jmh -PjmhJvm=/path/to/jdk-21/bin/java, 그 미만이면 이 Trial 만 실패)
+ * - 주문 성공/실패 수는 Trial 이 끝날 때 출력
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class LockContentionBenchmark {
+
+    private static final int LOCK_HOLD_MILLIS = 500;
+
+    @Param({"platform", "virtual", "virtual-ungated"})
+    public String threading;
+
+    @Param({"400"})
+    public int parkedRequests;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    private ExecutorService load;
+    private volatile boolean running;
+    private final AtomicLong ordered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = threading.startsWith("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("가상 스레드는 Java 21 이상에서 실행해야 합니다. java=" + Runtime.version());
+        }
+
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .profiles(virtual ? new String[]{"local", "virtual"} : new String[]{"local"})
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=50",
+                        "server.tomcat.accept-count=1000",
+                        "server.tomcat.max-connections=10000",
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/lock-contention;LOCK_TIMEOUT=10000",
+                        "spring.datasource.hikari.maximum-pool-size=20",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run(threading.equals("virtual-ungated") ? new String[]{"--jpashop.jdbc.connection-limit.enabled=false"} : new String[0]); // 프로필 설정보다 우선
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        Member member = new Member();
+        member.setName("락경합회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = context.getBean(MemberService.class).join(member);
+
+        Book book = new Book();
+        book.setName("인기상품");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        Long itemId = context.getBean(ItemService.class).saveItem(book);
+
+        running = true;
+        load = Executors.newFixedThreadPool(parkedRequests + 1);
+        load.execute(() -> holdLock(itemId));
+        String order = "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":1}]}";
+        for (int i = 0; i < parkedRequests; i++) {
+            load.execute(() -> order(order));
+        }
+    }
+
+    private void holdLock(Long itemId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        while (running) {
+            transactionTemplate.executeWithoutResult(status -> {
+                itemRepository.findOne(itemId);
+                sleep(LOCK_HOLD_MILLIS);
+            });
+        }
+    }
+
+    private void order(String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        while (running) {
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                (status == 200 ? ordered : failed).incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    @Benchmark
+    public int members() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v2/members"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        load.shutdown();
+        load.awaitTermination(70, TimeUnit.SECONDS);
+        boolean gated = context.getBean(DataSource.class) instanceof ConnectionLimitingDataSource;
+        System.out.printf("%nthreading=%s, gated=%s, orders ok=%d, failed=%d%n", threading, gated, ordered.get(), failed.get());
+        context.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
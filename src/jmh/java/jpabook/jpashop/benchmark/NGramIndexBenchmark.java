@@ -0,0 +1,41 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.support.search.NGramIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 이름 n-gram 색인 검색 (회원 100만 명, "성 + 두 글자 + id" 이름)
+ * - 3글자 이상(trigram 교집합), 2글자(bigram 목록), 숫자 검색어별 지연 시간
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NGramIndexBenchmark {
+
+    @Param({"김민서", "민서", "12345", "서준1", "이하도99"})
+    public String query;
+
+    private NGramIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] lastNames = {"김", "이", "박", "최", "정", "강", "조", "윤", "장", "임"};
+        char[] syllables = "민서준지하도윤우현예은수영호진성재아연".toCharArray();
+        SplittableRandom random = new SplittableRandom(1);
+        index = new NGramIndex();
+        for (long id = 1; id <= 1_000_000; id++) {
+            String name = lastNames[random.nextInt(lastNames.length)]
+                    + syllables[random.nextInt(syllables.length)]
+                    + syllables[random.nextInt(syllables.length)]
+                    + id;
+            index.put(id, name);
+        }
+    }
+
+    @Benchmark
+    public long[] search() {
+        return index.search(query);
+    }
+}
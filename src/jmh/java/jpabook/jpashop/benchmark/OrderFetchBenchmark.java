@@ -0,0 +1,125 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.api.OrderApiController;
+import jpabook.jpashop.support.dataset.DatasetGenerator;
+import jpabook.jpashop.support.dataset.DatasetProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * OrderApiController V2 ~ V6 조회 전략 비교
+ * - 주문 수(orders) 별로 파일 H2 DB 를 DatasetGenerator 로 한 번 만들고 재사용 (build/jmh-db)
+ * - 각 호출은 읽기 전용 트랜잭션 안에서 DTO 변환까지 수행 (OSIV 대신)
+ * - 처리량(thrpt), 지연 분포(sample, p99), 할당량(-prof gc) 은 build.gradle 의 jmh 설정 참고
+ */
+@State(Scope.Benchmark)
+public class OrderFetchBenchmark {
+
+    private static final long SEED = 20240101L;
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderApiController controller;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/orders-" + orders + ";CACHE_SIZE=262144",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.properties.hibernate.default_batch_fetch_size=100",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+
+        seed();
+
+        controller = context.getBean(OrderApiController.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    private void seed() {
+        long existing = context.getBean(JdbcTemplate.class).queryForObject("select count(*) from orders", Long.class);
+        if (existing >= orders) {
+            return;
+        }
+
+        DatasetProperties dataset = new DatasetProperties();
+        dataset.setSeed(SEED);
+        dataset.setOrders((int) (orders - existing));
+        context.getBean(DatasetGenerator.class).generate(dataset);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * V2. 엔티티 조회 + 지연 로딩 (1 + N + N + N)
+     */
+    @Benchmark
+    public void v2_search(Blackhole blackhole) {
+        blackhole.consume(inTransaction(controller::ordersV2));
+    }
+
+    /**
+     * V3. 주문 id 페이징 + 그 id 로 컬렉션 페치 조인
+     */
+    @Benchmark
+    public void v3_findAllWithItem(Blackhole blackhole) {
+        blackhole.consume(inTransaction(() -> controller.ordersV3(1, 100)));
+    }
+
+    /**
+     * V3.1 ToOne 페치 조인 + 페이징, 컬렉션은 default_batch_fetch_size 로 IN 조회
+     */
+    @Benchmark
+    public void v3_1_findAllWithMemberDelivery_page(Blackhole blackhole) {
+        blackhole.consume(inTransaction(() -> controller.ordersV3_page(0, 100)));
+    }
+
+    /**
+     * V4. DTO 직접 조회 + 컬렉션은 OrderItemBatchLoader 로 IN 묶음 조회 (1 + N/256)
+     */
+    @Benchmark
+    public void v4_findOrderQueryDtos(Blackhole blackhole) {
+        blackhole.consume(inTransaction(controller::ordersV4));
+    }
+
+    /**
+     * V5. V4 와 같은 조회 + 동시 요청 합침 (OrderQueryCoalescer)
+     * - 벤치마크 스레드가 하나라 합쳐질 요청이 없으므로 V4 와의 차이는 합침 처리 비용
+     */
+    @Benchmark
+    public void v5_findAllByDto_optimization(Blackhole blackhole) {
+        blackhole.consume(inTransaction(controller::ordersV5));
+    }
+
+    /**
+     * V6. 플랫 조회 + 메모리에서 주문 단위로 묶기
+     */
+    @Benchmark
+    public void v6_findAllByDto_flat(Blackhole blackhole) {
+        blackhole.consume(inTransaction(controller::ordersV6));
+    }
+
+    private Object inTransaction(Supplier<?> query) {
+        return readOnly.execute(status -> query.get());
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderFlatGrouping;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * V6 플랫 조회 결과(주문 10만 건 x 주문상품 5 건)를 주문 단위로 묶는 비용
+ * - groupingByDto: 기존 V6 방식, 행마다 OrderQueryDto 를 키로 만들어서 groupingBy
+ * - singlePass: OrderFlatGrouping, 주문 id 순서대로 한 번 훑으면서 묶기
+ */
+@State(Scope.Benchmark)
+public class OrderFlatGroupingBenchmark {
+
+    private List<OrderFlatDto> flats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Address address = new Address("서울", "강가", "123-123");
+        LocalDateTime orderDate = LocalDateTime.now();
+
+        flats = new ArrayList<>(100_000 * 5);
+        for (long orderId = 1; orderId <= 100_000; orderId++) {
+            for (int i = 0; i < 5; i++) {
+                flats.add(new OrderFlatDto(orderId, "회원" + orderId, orderDate, OrderStatus.ORDER, address, "item" + i, 10000, i + 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> groupingByDto() {
+        return flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                .collect(toList());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> singlePass() {
+        return OrderFlatGrouping.group(flats);
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderIntake;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 주문 쓰기 폭주 (스레드 64개가 소수의 인기 상품을 동시에 주문)
+ * - sync: 요청마다 트랜잭션 한번 (상품 락 + insert + 커밋)
+ * - intake: OrderIntake 대기열에 넣고 묶음 트랜잭션으로 반영될 때까지 대기
+ * - 처리량(thrpt)은 초당 주문 수, sample 모드의 p0.99 가 요청 지연 p99
+ */
+@State(Scope.Benchmark)
+@Threads(64)
+public class OrderIntakeBenchmark {
+
+    @Param({"1", "16"})
+    public int hotItems;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderIntake orderIntake;
+
+    private Long memberId;
+    private Long[] itemIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/intake;LOCK_TIMEOUT=10000",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "jpashop.order-intake.capacity=100000",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+        orderService = context.getBean(OrderService.class);
+        orderIntake = context.getBean(OrderIntake.class);
+
+        Member member = new Member();
+        member.setName("벤치회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = context.getBean(MemberService.class).join(member);
+
+        itemIds = new Long[hotItems];
+        for (int i = 0; i < hotItems; i++) {
+            Book book = new Book();
+            book.setName("인기상품" + i);
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE);
+            itemIds[i] = context.getBean(ItemService.class).saveItem(book);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long sync() {
+        return orderService.groupOrder(List.of(new OrderCommand(memberId, item(), 1))).get(0);
+    }
+
+    @Benchmark
+    public Long intake() {
+        return orderIntake.submit(memberId, item(), 1).join();
+    }
+
+    private Long item() {
+        return itemIds[ThreadLocalRandom.current().nextInt(itemIds.length)];
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.support.dataset.DatasetGenerator;
+import jpabook.jpashop.support.dataset.DatasetProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 주문 목록 페이지 깊이별 offset 페이징과 키셋(seek) 페이징 비교 (회원, 배송 페치 조인, 100 건)
+ * - offset: depth 만큼 읽고 버린 뒤 100 건
+ * - seek: depth 번째 주문의 (orderDate, id) 커서 다음부터 100 건
+ */
+@State(Scope.Benchmark)
+public class OrderPagingBenchmark {
+
+    private static final int ORDERS = 100_000;
+    private static final int LIMIT = 100;
+
+    @Param({"0", "1000", "10000", "90000"})
+    public int depth;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private TransactionTemplate readOnly;
+    private OrderCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/orders-" + ORDERS + ";CACHE_SIZE=262144",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+
+        long existing = context.getBean(JdbcTemplate.class).queryForObject("select count(*) from orders", Long.class);
+        if (existing < ORDERS) {
+            DatasetProperties dataset = new DatasetProperties();
+            dataset.setOrders((int) (ORDERS - existing));
+            context.getBean(DatasetGenerator.class).generate(dataset);
+        }
+
+        orderRepository = context.getBean(OrderRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        cursor = depth == 0 ? null : readOnly.execute(status -> OrderCursor.from(
+                em.createQuery("select o from Order o order by o.orderDate, o.id", Order.class)
+                        .setFirstResult(depth - 1)
+                        .setMaxResults(1)
+                        .getSingleResult()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) {
+        blackhole.consume(inTransaction(() -> orderRepository.findAllWithMemberDelivery(depth, LIMIT)));
+    }
+
+    @Benchmark
+    public void seek(Blackhole blackhole) {
+        blackhole.consume(inTransaction(() -> orderRepository.findAllWithMemberDelivery(cursor, LIMIT)));
+    }
+
+    private Object inTransaction(Supplier<?> query) {
+        return readOnly.execute(status -> query.get());
+    }
+}
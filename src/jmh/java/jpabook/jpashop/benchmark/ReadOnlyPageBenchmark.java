@@ -0,0 +1,111 @@
+package jpabook.jpashop.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.support.dataset.DatasetGenerator;
+import jpabook.jpashop.support.dataset.DatasetProperties;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 10k 건 주문 페이지 (회원, 배송 페치 조인 + 주문상품 지연 로딩) 를 올려 둔 영속성 컨텍스트의 flush 비용, 유지 힙
+ * - readOnly=false: 관리 엔티티, 엔티티마다 스냅샷 + flush 때 변경 감지
+ * - readOnly=true: 세션 기본 읽기 전용 + 쿼리 힌트 (OSIV 조회 API 와 같은 설정)
+ * - 조회 자체의 할당량은 같다. (스냅샷 배열은 조회 중에 어차피 만들어지고, 읽기 전용이면 바로 버려진다)
+ * - 유지 힙은 Trial 이 끝날 때 출력 (GC 후 조회 전/후 사용량 차이의 평균)
+ */
+@State(Scope.Benchmark)
+public class ReadOnlyPageBenchmark {
+
+    private static final int ORDERS = 100_000;
+    private static final int PAGE_SIZE = 10_000;
+
+    @Param({"false", "true"})
+    public boolean readOnly;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+
+    private EntityManager em;
+    private long retainedBytes;
+    private int loads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/orders-" + ORDERS + ";CACHE_SIZE=262144",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.properties.hibernate.default_batch_fetch_size=1000",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+
+        long existing = context.getBean(JdbcTemplate.class).queryForObject("select count(*) from orders", Long.class);
+        if (existing < ORDERS) {
+            DatasetProperties dataset = new DatasetProperties();
+            dataset.setOrders((int) (ORDERS - existing));
+            context.getBean(DatasetGenerator.class).generate(dataset);
+        }
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void load() {
+        long before = usedHeap();
+
+        em = emf.createEntityManager();
+        em.unwrap(Session.class).setDefaultReadOnly(readOnly);
+        em.getTransaction().begin();
+
+        List<Order> orders = em.createQuery(
+                        "select o from Order o " +
+                                "join fetch o.member m " +
+                                "join fetch o.delivery d " +
+                                "order by o.id", Order.class)
+                .setHint("org.hibernate.readOnly", readOnly)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        for (Order order : orders) {
+            order.getOrderItems().size();
+        }
+
+        retainedBytes += usedHeap() - before;
+        loads++;
+    }
+
+    @Benchmark
+    public void flush() {
+        em.flush();
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nreadOnly=%s, retained heap per %d orders page = %d KB%n", readOnly, PAGE_SIZE, retainedBytes / loads / 1024);
+        context.close();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
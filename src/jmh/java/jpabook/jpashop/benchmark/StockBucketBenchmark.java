@@ -0,0 +1,70 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.StockBucketService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 인기 상품 하나에 스레드 20개가 동시에 1 개씩 주문할 때 재고 버킷 수(buckets)별 처리량, 지연
+ * - OrderService.orderWithBuckets (임의의 버킷 row 하나만 잠금)
+ * - 상품 row 하나를 잠그는 방식과의 비교는 StockDecrementBenchmark 참고
+ */
+@State(Scope.Benchmark)
+@Threads(20)
+public class StockBucketBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int buckets;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    private Long memberId;
+    private Long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/stock-bucket;LOCK_TIMEOUT=10000",
+                        "spring.datasource.hikari.maximum-pool-size=20",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        Member member = new Member();
+        member.setName("벤치회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = context.getBean(MemberService.class).join(member);
+
+        Book book = new Book();
+        book.setName("인기상품");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        itemId = context.getBean(ItemService.class).saveItem(book);
+        context.getBean(StockBucketService.class).shard(itemId, buckets);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.orderWithBuckets(memberId, itemId, 1);
+    }
+}
@@ -0,0 +1,91 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpaStudyApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 인기 상품 하나에 스레드 20개가 동시에 1 개씩 주문할 때 재고 차감 방식별 처리량, 지연
+ * - pessimistic: OrderService.order (상품 PESSIMISTIC_WRITE 락 대기)
+ * - optimistic: OrderService.order2 (version 충돌 시 @OptimisticRetry 재시도, 한도를 넘기면 실패)
+ * - conditional: OrderService.orderWithConditionalUpdate ("재고 >= 수량" 조건부 update 한번)
+ * - 재시도 한도를 넘긴 주문 수는 Trial 이 끝날 때 출력
+ */
+@State(Scope.Benchmark)
+@Threads(20)
+public class StockDecrementBenchmark {
+
+    @Param({"pessimistic", "optimistic", "conditional"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    private Long memberId;
+    private Long itemId;
+    private final AtomicLong gaveUp = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./build/jmh-db/stock-decrement;LOCK_TIMEOUT=10000",
+                        "spring.datasource.hikari.maximum-pool-size=20",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off",
+                        "logging.level.org.hibernate.orm.jdbc.batch=off",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=off",
+                        "logging.level.jpabook.jpashop.support=off")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        Member member = new Member();
+        member.setName("벤치회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = context.getBean(MemberService.class).join(member);
+
+        Book book = new Book();
+        book.setName("인기상품");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        itemId = context.getBean(ItemService.class).saveItem(book);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nmode=%s, gave up=%d%n", mode, gaveUp.get());
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        switch (mode) {
+            case "pessimistic":
+                return orderService.order(memberId, itemId, 1);
+            case "optimistic":
+                try {
+                    return orderService.order2(memberId, itemId, 1);
+                } catch (OptimisticLockingFailureException e) {
+                    gaveUp.incrementAndGet();
+                    return null;
+                }
+            case "conditional":
+                return orderService.orderWithConditionalUpdate(memberId, itemId, 1);
+            default:
+                throw new IllegalArgumentException("mode=" + mode);
+        }
+    }
+}
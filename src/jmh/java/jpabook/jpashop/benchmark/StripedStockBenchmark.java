@@ -0,0 +1,31 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.service.StripedStock;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 상품 하나에 모든 코어가 동시에 재고를 1 개씩 차감할 때의 처리량 (DB 없이 StripedStock 만)
+ * - cells=1: 칸 하나 (AtomicLong 하나에 CAS 경합)
+ * - cells=0: 기본 칸 수 (코어 수 기준)
+ * - 스레드 수는 -t 로 바꿔서 비교 (기본은 코어 수)
+ */
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+public class StripedStockBenchmark {
+
+    @Param({"1", "0"})
+    public int cells;
+
+    private StripedStock stock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long quantity = Long.MAX_VALUE / 2; // 측정 중에 바닥나지 않는 재고
+        stock = cells == 0 ? new StripedStock(quantity) : new StripedStock(quantity, cells);
+    }
+
+    @Benchmark
+    public boolean tryRemove() {
+        return stock.tryRemove(1);
+    }
+}
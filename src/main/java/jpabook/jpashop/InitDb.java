@@ -4,6 +4,9 @@ import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderViewProjector;
+import jpabook.jpashop.support.dataset.DatasetGenerator;
+import jpabook.jpashop.support.dataset.DatasetProperties;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -15,11 +18,23 @@ import org.springframework.transaction.annotation.Transactional;
 public class InitDb {
 
     private final InitService initService;
-
+    private final DatasetProperties datasetProperties;
+    private final DatasetGenerator datasetGenerator;
+    private final OrderViewProjector orderViewProjector;
+
+    /**
+     * jpashop.dataset.enabled=true 면 설정한 규모로 대량 생성 (회원, 상품 id 는 1 부터)
+     * - OrderService 를 거치지 않고 넣은 주문이므로 그때만 주문 조회 모델(order_view)을 다시 만든다.
+     */
     @PostConstruct
     public void init() {
-        initService.dbInit1();
-//        initService.dbInit2();
+        if (datasetProperties.isEnabled()) {
+            datasetGenerator.generate(datasetProperties);
+            orderViewProjector.rebuild();
+        } else {
+            initService.dbInit1();
+//            initService.dbInit2();
+        }
     }
 
     @Component
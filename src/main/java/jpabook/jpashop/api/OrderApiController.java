@@ -1,26 +1,43 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderFlatGrouping;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.view.OrderView;
+import jpabook.jpashop.repository.order.view.OrderViewRepository;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderIntake;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderQueryCoalescer;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
-
-import static java.util.stream.Collectors.*;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -34,13 +51,18 @@ import static java.util.stream.Collectors.*;
  * V3. 엔티티를 조회해서 DTO로 변환(fetch join 사용O)
  * - 페이징 시에는 N 부분을 포기해야함(대신에 batch fetch size? 옵션 주면 N -> 1 쿼리로 변경 가
  능)
+ * - 주문 id 로 먼저 페이징하고 그 id 로 페치 조인하면 페이징 가능
  *
- * V4. JPA에서 DTO로 바로 조회, 컬렉션 N 조회 (1 + N Query)
+ * V4. JPA에서 DTO로 바로 조회, 컬렉션은 주문 id 묶음 IN 조회 (1 + N/256 Query)
  * - 페이징 가능
- * V5. JPA에서 DTO로 바로 조회, 컬렉션 1 조회 최적화 버전 (1 + 1 Query)
+ * - 주문마다 컬렉션을 조회하던 1 + N 루프는 OrderItemBatchLoader 로 대체
+ * V5. V4 와 같은 조회 (1 + N/256 Query, OrderItemBatchLoader)
  * - 페이징 가능
+ * - 동시에 들어온 같은 요청은 조회 한 번으로 합침
  * V6. JPA에서 DTO로 바로 조회, 플랫 데이터(1Query) (1 Query)
  * - 페이징 불가능...
+ * V7. 주문 조회 모델(order_view)에서 조회 (1 Query, 조인 없음)
+ * - 페이징 가능
  *
  */
 
@@ -50,6 +72,11 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
+    private final OrderIntake orderIntake;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderQueryCoalescer orderQueryCoalescer;
 
     /**
      * V1. 엔티티 직접 노출
@@ -58,7 +85,7 @@ public class OrderApiController {
      */
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        List<Order> all = orderRepository.search(new OrderSearch());
         for (Order order : all) {
             order.getMember().getName(); // Lazy 강제 초기화
             order.getDelivery().getAddress(); // Lazy 강제 초기화
@@ -72,7 +99,7 @@ public class OrderApiController {
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
 
-        List<OrderDto> orderList = orderRepository.findAllByString(new OrderSearch())
+        List<OrderDto> orderList = orderRepository.search(new OrderSearch())
                 .stream()
                 .map(OrderDto::new)
                 .toList();
@@ -116,10 +143,18 @@ public class OrderApiController {
         }
     }
 
+    /**
+     * V3. 컬렉션 페치 조인 페이징
+     * - 주문 id 로 먼저 페이징하고 그 id 로 페치 조인 (메모리 페이징 없음)
+     * - 기본값은 기존 응답과 같은 offset=1, limit=100
+     * - V3 ~ V3.2 의 limit 은 V7 과 같이 1 ~ 1000 (범위 밖이면 400)
+     */
     @GetMapping("/api/v3/orders")
-    public List<OrderDto> ordersV3() {
+    public List<OrderDto> ordersV3(
+            @RequestParam(value = "offset", defaultValue = "1") @Min(0) int offset,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
 
-        List<OrderDto> orderList = orderRepository.findAllWithItem()
+        List<OrderDto> orderList = orderRepository.findAllWithItem(offset, limit)
                 .stream()
                 .map(OrderDto::new)
                 .toList();
@@ -129,8 +164,8 @@ public class OrderApiController {
 
     @GetMapping("/api/v3.1/orders")
     public List<OrderDto> ordersV3_page(
-            @RequestParam(value = "offset", defaultValue = "0") int offset,
-            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+            @RequestParam(value = "offset", defaultValue = "0") @Min(0) int offset,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
 
         List<OrderDto> orderList = orderRepository.findAllWithMemberDelivery(offset, limit)
                 .stream()
@@ -140,27 +175,189 @@ public class OrderApiController {
         return orderList;
     }
 
+    /**
+     * V3.2 키셋(seek) 페이징
+     * - offset 대신 이전 응답의 nextCursor 를 넘겨서 다음 페이지 조회
+     * - 페이지가 깊어져도 조회 비용이 늘어나지 않는다.
+     */
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDto>> ordersV3_cursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
+
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(OrderCursor.decode(cursor), limit);
+
+        List<OrderDto> orderList = orders.stream()
+                .map(OrderDto::new)
+                .toList();
+
+        String nextCursor = orders.isEmpty() || orders.size() < limit ? null : OrderCursor.from(orders.get(orders.size() - 1)).encode();
+
+        return new CursorResult<>(orderList, nextCursor);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
+    }
+
     @GetMapping("/api/v4/orders")
     public List<OrderQueryDto> ordersV4() {
 
         return orderQueryRepository.findOrderQueryDtos();
     }
 
+    /**
+     * V5. 같은 요청이 동시에 몰리면 조회 한 번의 결과를 같이 받는다. (OrderQueryCoalescer)
+     */
     @GetMapping("/api/v5/orders")
     public List<OrderQueryDto> ordersV5() {
 
-        return orderQueryRepository.findAllByDto_optimization();
+        return orderQueryCoalescer.findAllByDto_optimization();
     }
 
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> ordersV6() {
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
 
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
-                .collect(toList());
+        // 주문 id 순으로 정렬된 플랫 데이터를 한 번 순회하면서 주문 단위로 묶음
+        return OrderFlatGrouping.group(flats);
+    }
+
+    /**
+     * V7. 주문 조회 모델(order_view)에서 조회
+     * - 조인 없이 order_view PK 범위 스캔 한 번 (주문상품은 저장된 JSON 을 그대로 응답)
+     * - 주문 id 키셋 페이징, 다음 페이지는 nextCursor 로 조회
+     * - limit 은 1 ~ 1000 (범위 밖이면 400)
+     */
+    @GetMapping("/api/v7/orders")
+    public CursorResult<List<OrderViewDto>> ordersV7(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
+
+        List<OrderViewDto> orderList = orderViewRepository.findPage(after, limit)
+                .stream()
+                .map(OrderViewDto::new)
+                .toList();
+
+        String nextCursor = orderList.size() < limit ? null : String.valueOf(orderList.get(orderList.size() - 1).getOrderId());
+
+        return new CursorResult<>(orderList, nextCursor);
+    }
+
+    @Getter
+    static class OrderViewDto {
+
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        @JsonRawValue
+        private String orderItems;
+
+        public OrderViewDto(OrderView orderView) {
+            orderId = orderView.getOrderId();
+            name = orderView.getMemberName();
+            orderDate = orderView.getOrderDate();
+            orderStatus = orderView.getStatus();
+            address = orderView.getAddress();
+            orderItems = orderView.getOrderItems();
+        }
+    }
+
+    /**
+     * 주문 전체 스트리밍 내보내기
+     * - List 로 모으지 않고 커서로 읽으면서 주문 한 건당 JSON 한 줄(NDJSON)씩 바로 응답에 쓴다.
+     */
+    @GetMapping(value = "/api/orders/stream", produces = "application/x-ndjson")
+    public void ordersStream(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        orderExportService.exportOrders(response.getOutputStream());
+    }
+
+    /**
+     * 장바구니 주문 등록 (여러 상품을 한 주문으로)
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateCartOrderResponse cartOrder(@RequestBody @Valid CreateCartOrderRequest request) {
+        List<OrderLine> orderLines = request.getOrderLines().stream()
+                .map(o -> new OrderLine(o.getItemId(), o.getCount()))
+                .toList();
+
+        return new CreateCartOrderResponse(orderService.order(request.getMemberId(), orderLines));
+    }
+
+    @Data
+    static class CreateCartOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        @Size(max = 100)
+        private List<@Valid OrderLineRequest> orderLines;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCartOrderResponse {
+        private Long orderId;
+    }
+
+    /**
+     * 대량 주문 등록
+     * - 여러 건의 주문을 한 트랜잭션에서 jdbc batch insert 로 저장
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResponse bulkOrder(@RequestBody @Valid BulkOrderRequest request) {
+        List<OrderCommand> commands = request.getOrders().stream()
+                .map(o -> new OrderCommand(o.getMemberId(), o.getItemId(), o.getCount()))
+                .toList();
+
+        return new BulkOrderResponse(orderService.bulkOrder(commands));
+    }
+
+    /**
+     * 주문 접수 (group commit)
+     * - 대기열에 넣고 응답은 비동기로, 모아서 한 트랜잭션으로 반영된 뒤에 주문 id 를 응답
+     */
+    @PostMapping("/api/v1/orders/intake")
+    public CompletableFuture<CreateCartOrderResponse> intakeOrder(@RequestBody @Valid CreateOrderRequest request) {
+        return orderIntake.submit(request.getMemberId(), request.getItemId(), request.getCount())
+                .thenApply(CreateCartOrderResponse::new);
+    }
+
+    @Data
+    static class BulkOrderRequest {
+        @NotEmpty
+        @Size(max = 1000)
+        private List<@Valid CreateOrderRequest> orders;
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkOrderResponse {
+        private List<Long> orderIds;
     }
 }
@@ -6,7 +6,7 @@ import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
-import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderQueryCoalescer;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,17 +26,17 @@ import java.util.List;
 public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
-    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderQueryCoalescer orderQueryCoalescer;
 
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        List<Order> all = orderRepository.search(new OrderSearch());
         return all;
     }
 
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> ordersV2() {
-        List<SimpleOrderDto> orders = orderRepository.findAllByString(new OrderSearch())
+        List<SimpleOrderDto> orders = orderRepository.search(new OrderSearch())
                 .stream().map(SimpleOrderDto::new)
                 .toList();
 
@@ -69,8 +69,12 @@ public class OrderSimpleApiController {
         return orders;
     }
 
+    /**
+     * V4. DTO 로 바로 조회
+     * - 같은 요청이 동시에 몰리면 조회 한 번의 결과를 같이 받는다. (OrderQueryCoalescer)
+     */
     @GetMapping("/api/v4/simple-orders")
     public List<OrderSimpleQueryDto> ordersV4() {
-        return orderSimpleQueryRepository.findOrderDtos();
+        return orderQueryCoalescer.findOrderDtos();
     }
 }
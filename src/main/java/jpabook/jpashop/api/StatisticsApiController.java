@@ -0,0 +1,107 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hibernate 통계 조회
+ */
+@RestController
+@RequiredArgsConstructor
+public class StatisticsApiController {
+
+    private final EntityManagerFactory emf;
+
+    /**
+     * 2차 캐시 영역별 hit/miss, 쿼리 캐시 hit/miss
+     */
+    @GetMapping("/api/stats/cache")
+    public CacheStatsResponse cacheStats() {
+        Statistics statistics = statistics();
+
+        List<RegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(name -> {
+                    CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+                    return new RegionStats(name, region.getHitCount(), region.getMissCount(), region.getPutCount(), region.getElementCountInMemory());
+                })
+                .toList();
+
+        return new CacheStatsResponse(regions,
+                new RegionStats("query", statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(), -1));
+    }
+
+    /**
+     * 쿼리 계획 캐시 hit/miss, 실행 횟수가 많은 쿼리
+     * - 주문 검색(named query) 은 조건 조합마다 처음 한 번만 miss, 이후로는 hit 만 늘어야 한다.
+     */
+    @GetMapping("/api/stats/query-plan")
+    public QueryPlanStatsResponse queryPlanStats(@RequestParam(value = "limit", defaultValue = "20") int limit) {
+        Statistics statistics = statistics();
+
+        List<QueryStats> queries = Arrays.stream(statistics.getQueries())
+                .map(query -> {
+                    QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+                    return new QueryStats(query, queryStatistics.getExecutionCount(), queryStatistics.getExecutionAvgTime(),
+                            queryStatistics.getExecutionMaxTime(), queryStatistics.getPlanCacheHitCount(), queryStatistics.getPlanCacheMissCount());
+                })
+                .sorted(Comparator.comparingLong(QueryStats::getExecutionCount).reversed())
+                .limit(limit)
+                .toList();
+
+        return new QueryPlanStatsResponse(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount(), queries);
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheStatsResponse {
+        private List<RegionStats> regions;
+        private RegionStats queryCache;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class QueryPlanStatsResponse {
+        private long planCacheHitCount;
+        private long planCacheMissCount;
+        private List<QueryStats> queries;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class QueryStats {
+        private String query;
+        private long executionCount;
+        private long executionAvgTime;
+        private long executionMaxTime;
+        private long planCacheHitCount;
+        private long planCacheMissCount;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class RegionStats {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCount;
+    }
+}
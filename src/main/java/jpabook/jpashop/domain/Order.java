@@ -13,7 +13,33 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"),
+        @Index(name = "idx_orders_member_id", columnList = "member_id")
+})
+@NamedQueries({
+        // 주문 검색 (OrderSearch 조건 조합마다 하나씩, 기동 시점에 한 번만 파싱)
+        // - 회원 이름은 대소문자 구분 없이 (:name 은 소문자로), 주문 id 순 (회원 이름 색인 경로와 같은 결과)
+        @NamedQuery(name = "Order.search",
+                query = "select o from Order o join o.member m order by o.id"),
+        @NamedQuery(name = "Order.searchByStatus",
+                query = "select o from Order o join o.member m where o.status = :status order by o.id"),
+        @NamedQuery(name = "Order.searchByMemberName",
+                query = "select o from Order o join o.member m where lower(m.name) like :name escape '!' order by o.id"),
+        @NamedQuery(name = "Order.searchByStatusAndMemberName",
+                query = "select o from Order o join o.member m where o.status = :status and lower(m.name) like :name escape '!' order by o.id")
+})
+@NamedEntityGraphs({
+        // 주문 목록 조회 fetch plan (OrderFetchPlan)
+        @NamedEntityGraph(name = "Order.member",
+                attributeNodes = @NamedAttributeNode("member")),
+        @NamedEntityGraph(name = "Order.memberDelivery",
+                attributeNodes = {@NamedAttributeNode("member"), @NamedAttributeNode("delivery")}),
+        @NamedEntityGraph(name = "Order.items",
+                attributeNodes = {@NamedAttributeNode("member"), @NamedAttributeNode("delivery"),
+                        @NamedAttributeNode(value = "orderItems", subgraph = "orderItems.item")},
+                subgraphs = @NamedSubgraph(name = "orderItems.item", attributeNodes = @NamedAttributeNode("item")))
+})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
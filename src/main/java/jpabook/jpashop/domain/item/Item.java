@@ -5,6 +5,8 @@ import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +16,7 @@ import java.util.List;
 @Setter
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) // 상속관계 설계 전략
 @DiscriminatorColumn(name = "dtype") // 상속관계 구분
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 하위 타입(Book, Album, Movie)도 같은 영역 사용, 수정 중에는 캐시 대신 DB 조회
 public abstract class Item {
 
     @Id
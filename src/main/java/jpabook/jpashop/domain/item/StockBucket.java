@@ -0,0 +1,41 @@
+package jpabook.jpashop.domain.item;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 상품 재고 버킷
+ * - 인기 상품의 재고를 K 개 row 로 나눠서 주문이 상품 row 하나에 줄 서지 않게 한다.
+ * - 버킷으로 나뉜 상품의 재고 = Item.stockQuantity (취소 등으로 돌아온 재고) + 버킷 수량 합
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "stock_bucket",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_bucket_item_bucket_no", columnNames = {"item_id", "bucket_no"}))
+public class StockBucket {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "stock_bucket_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @Column(name = "bucket_no")
+    private int bucketNo;
+
+    private int quantity;
+
+    // 생성 메서드
+    public static StockBucket createStockBucket(Item item, int bucketNo, int quantity) {
+        StockBucket stockBucket = new StockBucket();
+        stockBucket.setItem(item);
+        stockBucket.setBucketNo(bucketNo);
+        stockBucket.setQuantity(quantity);
+        return stockBucket;
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.domain.item;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 재고 예약 기록 (StockLedger)
+ * - 예약 주문과 같은 트랜잭션에서 저장되므로 커밋된 주문의 차감분만 남는다.
+ * - 상품 재고(Item.stockQuantity)에 반영된 기록은 반영한 트랜잭션에서 삭제한다.
+ * - 남아 있는 기록 = 커밋됐지만 아직 상품 재고에 반영되지 않은 차감분 (서버가 죽어도 유지)
+ */
+@Entity
+@Getter
+@Table(name = "stock_reservation", indexes = @Index(name = "idx_stock_reservation_item_id", columnList = "item_id"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockReservation {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "stock_reservation_id")
+    private Long id;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private int count;
+
+    // 생성 메서드
+    public static StockReservation createStockReservation(Long itemId, int count) {
+        StockReservation stockReservation = new StockReservation();
+        stockReservation.itemId = itemId;
+        stockReservation.count = count;
+        return stockReservation;
+    }
+}
@@ -1,11 +1,16 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +20,8 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class ItemRepository {
 
+    private static final String STOCK_QUERY_SPACE = "item_stock";
+
     private final EntityManager em;
 
     public void save(Item item) {
@@ -42,6 +49,18 @@ public class ItemRepository {
 //                .getSingleResult();
     }
 
+    /**
+     * 여러 상품을 한번의 쿼리로 락 획득
+     * - 항상 id 순서로 락을 잡으므로 같은 상품들을 다른 순서로 주문해도 데드락이 나지 않는다.
+     */
+    public List<Item> findAllForUpdate(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("jakarta.persistence.lock.timeout", 10000)
+                .getResultList();
+    }
+
     public Item findOne2(Long id) {
         Map<String, Object> properties = new HashMap<>();
         properties.put("jakarta.persistence.lock.timeout", 10000);
@@ -50,8 +69,89 @@ public class ItemRepository {
         return em.find(Item.class, id, LockModeType.OPTIMISTIC);
     }
 
+    /**
+     * 락 없이 조회 (재고를 다른 곳에서 차감하는 경우)
+     */
+    public Item findOneWithoutLock(Long id) {
+        return em.find(Item.class, id);
+    }
+
+    /**
+     * 재고 수량만 조회 (없는 상품이면 null)
+     */
+    public Integer findStockQuantity(Long id) {
+        return em.createQuery("select i.stockQuantity from Item i where i.id = :id", Integer.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 재고 장부(StockLedger)에 올릴 상품 조회
+     * - 비관적 락과 함께 version 을 바로 올려서, 먼저 낙관적 락으로 조회해 둔 주문은 커밋 시점에 충돌한다.
+     */
+    public Item findOneForceIncrement(Long id) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.lock.timeout", 10000);
+
+        return em.find(Item.class, id, LockModeType.PESSIMISTIC_FORCE_INCREMENT, properties);
+    }
+
+    /**
+     * 재고 변화량을 update 한번으로 반영 (엔티티를 조회하지 않음)
+     * - 재고가 quantity 이상일 때만 차감 (음수 재고가 되지 않는다)
+     * - version 도 같이 올려서 낙관적 락으로 조회한 쪽이 변경을 감지하게 한다.
+     * @return 재고가 부족해서 반영하지 못하면 false
+     */
+    public boolean removeStockQuantity(Long id, long quantity) {
+        return updateStock(id, Math.toIntExact(quantity)); // int 범위를 넘으면 잘리지 않고 예외
+    }
+
+    /**
+     * 재고가 충분할 때만 update 한번으로 차감
+     * - 엔티티를 조회/락 하지 않으므로 락 대기나 version 충돌 재시도가 없다.
+     * @return 재고가 부족하면 false
+     */
+    public boolean decreaseStock(Long id, int count) {
+        return updateStock(id, count);
+    }
+
+    /**
+     * 재고 조건부 차감 후 그 상품만 2차 캐시에서 제거
+     * - JPQL bulk update 는 Item 캐시 영역 전체와 item 테이블 쿼리 캐시를 비우므로 native update 로 실행하고,
+     *   동기화 공간은 어떤 엔티티/쿼리에도 걸리지 않는 재고 전용 이름으로 둔다. (재고는 쿼리 캐시 결과(id 목록)를 바꾸지 않는다)
+     * - 커밋 전에 다른 트랜잭션(또는 같은 트랜잭션의 조회)이 캐시에 넣은 값은 커밋/롤백 후에 한번 더 제거한다.
+     */
+    private boolean updateStock(Long id, int quantity) {
+        int updated = em.createNativeQuery("update item set stock_quantity = stock_quantity - :quantity, version = version + 1 " +
+                        "where item_id = :id and stock_quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("id", id)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .executeUpdate();
+        evictAfterCompletion(id);
+        return updated == 1;
+    }
+
+    private void evictAfterCompletion(Long id) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Item.class, id);
+                }
+            });
+        }
+    }
+
     public List<Item> findAll() {
         return em.createQuery("SELECT i FROM Item i", Item.class)
+                .setHint("org.hibernate.cacheable", true) // 쿼리 캐시
+                .setHint("org.hibernate.readOnly", true)
                 .getResultList();
     }
 }
@@ -23,12 +23,16 @@ public class MemberRepository {
 
     public List<Member> findAll() {
         return em.createQuery("SELECT m FROM Member m", Member.class)
+                .setHint("org.hibernate.cacheable", true) // 쿼리 캐시
+                .setHint("org.hibernate.readOnly", true)
                 .getResultList();
     }
 
     public List<Member> findByName(String name) {
         return em.createQuery("SELECT m FROM Member m WHERE m.name = :name", Member.class)
                 .setParameter("name", name)
+                .setHint("org.hibernate.cacheable", true) // 쿼리 캐시
+                .setHint("org.hibernate.readOnly", true)
                 .getResultList();
     }
 }
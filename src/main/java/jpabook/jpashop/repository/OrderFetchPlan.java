@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문 목록 조회 fetch plan (Order 엔티티의 @NamedEntityGraph)
+ * - ToOne 은 페이징 쿼리에서 조인으로 같이 조회
+ * - 컬렉션이 있는 plan 은 페이지를 먼저 조회한 뒤 그 주문 id 로 컬렉션만 한번 더 조회 (메모리 페이징 없음)
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OrderFetchPlan {
+
+    MEMBER("Order.member"),
+    MEMBER_DELIVERY("Order.memberDelivery"),
+    ITEMS("Order.items");
+
+    private final String graphName;
+}
@@ -1,21 +1,37 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.EntityType;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
+    /**
+     * 목록 조회는 읽기 전용으로 (스냅샷을 만들지 않고, flush 때 변경 감지 대상에서 빠진다)
+     * - 수정할 주문은 findOne 으로 다시 조회해야 한다.
+     */
+    private static final String READ_ONLY = "org.hibernate.readOnly";
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+    private static final int IN_CHUNK_SIZE = 1000;
+
     private final EntityManager em;
 
     public void save(Order order) {
@@ -26,6 +42,83 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
+    /**
+     * 주문 검색
+     * - 조건 조합마다 미리 등록한 named query 사용 (Order 엔티티), 요청마다 JPQL 을 만들거나 파싱하지 않는다.
+     * - 회원 이름은 대소문자 구분 없는 포함 검색, 주문 id 순으로 최대 1000 건
+     */
+    public List<Order> search(OrderSearch orderSearch) {
+        boolean hasStatus = orderSearch.getOrderStatus() != null;
+        boolean hasName = StringUtils.hasText(orderSearch.getMemberName());
+
+        String queryName;
+        if (hasStatus && hasName) {
+            queryName = "Order.searchByStatusAndMemberName";
+        } else if (hasStatus) {
+            queryName = "Order.searchByStatus";
+        } else if (hasName) {
+            queryName = "Order.searchByMemberName";
+        } else {
+            queryName = "Order.search";
+        }
+
+        TypedQuery<Order> query = em.createNamedQuery(queryName, Order.class)
+                .setMaxResults(1000) //최대 1000건
+                .setHint(READ_ONLY, true);
+        if (hasStatus) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (hasName) {
+            query.setParameter("name", "%" + escapeLike(orderSearch.getMemberName().toLowerCase(Locale.ROOT)) + "%");
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 회원 id 목록으로 주문 검색 (member_id 인덱스)
+     * - 회원이 많으면 IN 절을 1000 개씩 나눠서 조회하고, 합친 결과에서 주문 id 순으로 limit 건 (search 와 같은 순서)
+     * - 전체에서 앞선 limit 건은 각 묶음의 앞선 limit 건 안에 있으므로 묶음마다 limit 건까지만 읽는다.
+     * - limit 건이 채워지면 다음 묶음은 지금까지의 limit 번째 주문 id 보다 작은 주문만 읽는다. (묶음이 많아도 읽는 행이 늘지 않게)
+     */
+    public List<Order> findAllByMemberIds(long[] memberIds, OrderStatus status, int limit) {
+        String jpql = "select o from Order o join fetch o.member m where m.id in :memberIds" +
+                (status != null ? " and o.status = :status" : "");
+        String cutoffJpql = jpql + " and o.id < :cutoff order by o.id";
+        jpql += " order by o.id";
+
+        List<Order> result = new ArrayList<>();
+        Long cutoff = null;
+        for (int from = 0; from < memberIds.length; from += IN_CHUNK_SIZE) {
+            List<Long> chunk = Arrays.stream(memberIds, from, Math.min(memberIds.length, from + IN_CHUNK_SIZE))
+                    .boxed()
+                    .toList();
+            TypedQuery<Order> query = em.createQuery(cutoff != null ? cutoffJpql : jpql, Order.class)
+                    .setParameter("memberIds", chunk)
+                    .setMaxResults(limit)
+                    .setHint(READ_ONLY, true);
+            if (status != null) {
+                query.setParameter("status", status);
+            }
+            if (cutoff != null) {
+                query.setParameter("cutoff", cutoff);
+            }
+            result.addAll(query.getResultList());
+
+            if (memberIds.length > IN_CHUNK_SIZE) {
+                result.sort(Comparator.comparing(Order::getId));
+                if (result.size() >= limit) {
+                    result = new ArrayList<>(result.subList(0, limit));
+                    cutoff = result.get(limit - 1).getId();
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     public List<Order> findAllByString(OrderSearch orderSearch) {
         //language=JPAQL
         String jpql = "select o From Order o join o.member m";
@@ -53,7 +146,8 @@ public class OrderRepository {
             jpql += " m.name like :name";
         }
         TypedQuery<Order> query = em.createQuery(jpql, Order.class)
-                .setMaxResults(1000); //최대 1000건
+                .setMaxResults(1000) //최대 1000건
+                .setHint(READ_ONLY, true);
         if (orderSearch.getOrderStatus() != null) {
             query = query.setParameter("status", orderSearch.getOrderStatus());
         }
@@ -84,7 +178,9 @@ public class OrderRepository {
             criteria.add(name);
         }
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
+        TypedQuery<Order> query = em.createQuery(cq)
+                .setMaxResults(1000) //최대 1000건
+                .setHint(READ_ONLY, true);
 
         return query.getResultList();
     }
@@ -94,28 +190,124 @@ public class OrderRepository {
                 "select o from Order o " +
                         "join fetch o.member m " +
                         "join fetch o.delivery d ", Order.class)
+                .setHint(READ_ONLY, true)
                 .getResultList();
     }
 
     public List<Order> findAllWithItem() {
+        return findAllWithItem(1, 100);
+    }
+
+    /**
+     * 주문상품까지 페이징 조회 (컬렉션 페치 조인 + offset/limit 을 메모리에서 처리하지 않도록 findAll(ITEMS) 의 2단계 조회)
+     */
+    public List<Order> findAllWithItem(int offset, int limit) {
+        return findAll(OrderFetchPlan.ITEMS, offset, limit);
+    }
+
+    /**
+     * 주문 id 목록으로 회원, 배송, 주문상품, 상품까지 한 번에 조회 (조회 모델 재생성용)
+     */
+    public List<Order> findAllWithItemByIds(Collection<Long> orderIds) {
         return em.createQuery(
-                "select o from Order o " +
-                        "join fetch o.member m " +
-                        "join fetch o.delivery d " +
-                        "join fetch o.orderItems ot " +
-                        "join fetch ot.item i", Order.class)
-                .setFirstResult(1)
-                .setMaxResults(100)
+                        "select o from Order o " +
+                                "join fetch o.member m " +
+                                "join fetch o.delivery d " +
+                                "join fetch o.orderItems ot " +
+                                "join fetch ot.item i " +
+                                "where o.id in :orderIds " +
+                                "order by o.id", Order.class)
+                .setParameter("orderIds", orderIds)
+                .setHint(READ_ONLY, true)
+                .getResultList();
+    }
+
+    /**
+     * after 다음 주문 id 부터 limit 개
+     */
+    public List<Long> findIdsAfter(Long after, int limit) {
+        return em.createQuery("select o.id from Order o where o.id > :after order by o.id", Long.class)
+                .setParameter("after", after == null ? 0L : after)
+                .setMaxResults(limit)
                 .getResultList();
     }
 
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
+        return findAll(OrderFetchPlan.MEMBER_DELIVERY, offset, limit);
+    }
+
+    /**
+     * fetch plan 으로 주문 목록 페이징 조회 (주문 id 순)
+     * - 1) 페이지: plan 의 ToOne 만 fetch graph 로 조인해서 DB 에서 offset/limit
+     * - 2) plan 에 컬렉션이 있으면 그 페이지의 주문 id 로 plan 전체를 fetch graph 로 한번 더 조회 (IN 1000 개씩)
+     *      이미 영속성 컨텍스트에 있는 주문의 컬렉션만 채워지고, 페이지 순서는 1) 의 결과 그대로
+     */
+    public List<Order> findAll(OrderFetchPlan plan, int offset, int limit) {
+        EntityGraph<?> graph = em.getEntityGraph(plan.getGraphName());
+        EntityGraph<Order> toOneGraph = toOneGraph(graph);
+
+        List<Order> orders = em.createQuery("select o from Order o order by o.id", Order.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .setHint(FETCH_GRAPH, toOneGraph)
+                .setHint(READ_ONLY, true)
+                .getResultList();
+
+        if (toOneGraph.getAttributeNodes().size() < graph.getAttributeNodes().size() && !orders.isEmpty()) {
+            List<Long> orderIds = orders.stream().map(Order::getId).toList();
+            for (int from = 0; from < orderIds.size(); from += IN_CHUNK_SIZE) {
+                em.createQuery("select o from Order o where o.id in :orderIds", Order.class)
+                        .setParameter("orderIds", orderIds.subList(from, Math.min(orderIds.size(), from + IN_CHUNK_SIZE)))
+                        .setHint(FETCH_GRAPH, graph)
+                        .setHint(READ_ONLY, true)
+                        .getResultList();
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * graph 에서 컬렉션 노드를 뺀 graph (페이징 쿼리에 컬렉션을 조인하면 행이 늘어나서 메모리에서 페이징하게 된다)
+     */
+    private EntityGraph<Order> toOneGraph(EntityGraph<?> graph) {
+        EntityType<Order> orderType = em.getMetamodel().entity(Order.class);
+        EntityGraph<Order> toOneGraph = em.createEntityGraph(Order.class);
+        for (AttributeNode<?> node : graph.getAttributeNodes()) {
+            if (!orderType.getAttribute(node.getAttributeName()).isCollection()) {
+                toOneGraph.addAttributeNodes(node.getAttributeName());
+            }
+        }
+        return toOneGraph;
+    }
+
+    /**
+     * 키셋(seek) 페이징
+     * - offset 만큼 읽고 버리지 않고 (orderDate, id) 인덱스에서 커서 다음 위치부터 바로 읽는다.
+     * - 몇 번째 페이지든 첫 페이지와 같은 비용
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        if (cursor == null) {
+            return em.createQuery(
+                            "select o from Order o " +
+                                    "join fetch o.member m " +
+                                    "join fetch o.delivery d " +
+                                    "order by o.orderDate, o.id", Order.class)
+                    .setMaxResults(limit)
+                    .setHint(READ_ONLY, true)
+                    .getResultList();
+        }
+
         return em.createQuery(
                         "select o from Order o " +
                                 "join fetch o.member m " +
-                                "join fetch o.delivery d ", Order.class)
-                .setFirstResult(offset)
+                                "join fetch o.delivery d " +
+                                "where o.orderDate >= :orderDate " +
+                                "and (o.orderDate > :orderDate or o.id > :orderId) " +
+                                "order by o.orderDate, o.id", Order.class)
+                .setParameter("orderDate", cursor.getOrderDate())
+                .setParameter("orderId", cursor.getOrderId())
                 .setMaxResults(limit)
+                .setHint(READ_ONLY, true)
                 .getResultList();
     }
 }
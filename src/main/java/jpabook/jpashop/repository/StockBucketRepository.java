@@ -0,0 +1,67 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jpabook.jpashop.domain.item.StockBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StockBucketRepository {
+
+    private final EntityManager em;
+
+    public void save(StockBucket stockBucket) {
+        em.persist(stockBucket);
+    }
+
+    public List<Long> findIds(Long itemId) {
+        return em.createQuery("select b.id from StockBucket b where b.item.id = :itemId order by b.bucketNo", Long.class)
+                .setParameter("itemId", itemId)
+                .getResultList();
+    }
+
+    /**
+     * 상품의 버킷 전체를 bucketNo 순서로 락 획득
+     */
+    public List<StockBucket> findAllForUpdate(Long itemId) {
+        return em.createQuery("select b from StockBucket b where b.item.id = :itemId order by b.bucketNo", StockBucket.class)
+                .setParameter("itemId", itemId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("jakarta.persistence.lock.timeout", 10000)
+                .getResultList();
+    }
+
+    /**
+     * 버킷으로 나뉜 상품 id 목록
+     */
+    public List<Long> findItemIds() {
+        return em.createQuery("select distinct b.item.id from StockBucket b", Long.class)
+                .getResultList();
+    }
+
+    public List<Integer> findQuantities(Long itemId) {
+        return em.createQuery("select b.quantity from StockBucket b where b.item.id = :itemId", Integer.class)
+                .setParameter("itemId", itemId)
+                .getResultList();
+    }
+
+    /**
+     * 버킷에 수량이 충분할 때만 update 한번으로 차감
+     * @return 수량이 부족하면 false
+     */
+    public boolean decrease(Long bucketId, int count) {
+        return em.createQuery("update StockBucket b set b.quantity = b.quantity - :count " +
+                        "where b.id = :id and b.quantity >= :count")
+                .setParameter("count", count)
+                .setParameter("id", bucketId)
+                .executeUpdate() == 1;
+    }
+
+    public void delete(StockBucket stockBucket) {
+        em.remove(stockBucket);
+    }
+}
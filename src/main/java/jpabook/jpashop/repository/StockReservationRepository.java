@@ -0,0 +1,60 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.item.StockReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class StockReservationRepository {
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+
+    public void save(StockReservation stockReservation) {
+        em.persist(stockReservation);
+    }
+
+    /**
+     * 아직 상품 재고에 반영되지 않은 예약 (커밋된 것만 보인다)
+     */
+    public List<StockReservation> findAll() {
+        return em.createQuery("select r from StockReservation r order by r.id", StockReservation.class)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList();
+    }
+
+    public long sumCount(Long itemId) {
+        return em.createQuery("select coalesce(sum(r.count), 0) from StockReservation r where r.itemId = :itemId", Long.class)
+                .setParameter("itemId", itemId)
+                .getSingleResult();
+    }
+
+    /**
+     * 상품별 반영되지 않은 예약 수량 합
+     */
+    public Map<Long, Long> sumCountByItem() {
+        Map<Long, Long> result = new HashMap<>();
+        em.createQuery("select r.itemId, sum(r.count) from StockReservation r group by r.itemId", Object[].class)
+                .getResultList()
+                .forEach(row -> result.put((Long) row[0], (Long) row[1]));
+        return result;
+    }
+
+    /**
+     * 읽어온 예약만 id 로 삭제 (그사이 커밋된 예약은 남긴다)
+     */
+    public void deleteAll(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            em.createQuery("delete from StockReservation r where r.id in :ids")
+                    .setParameter("ids", ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK_SIZE)))
+                    .executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 플랫 데이터(OrderFlatDto)를 주문 단위(OrderQueryDto)로 묶기
+ * - 주문 id 순으로 정렬된 행을 전제로 한 번만 순회한다.
+ * - 키 객체나 중간 Map 을 만들지 않고, 주문마다 OrderQueryDto 를 한 번만 생성한다.
+ * - 조회 순서를 그대로 유지
+ * - group(Iterator): 커서로 읽는 행을 주문 하나씩 묶어서 넘긴다. (주문 하나 분량만 메모리에 유지)
+ */
+public final class OrderFlatGrouping {
+
+    private OrderFlatGrouping() {
+    }
+
+    public static List<OrderQueryDto> group(List<OrderFlatDto> flats) {
+        List<OrderQueryDto> result = new ArrayList<>();
+
+        int size = flats.size();
+        int start = 0;
+        while (start < size) {
+            OrderFlatDto first = flats.get(start);
+            long orderId = first.getOrderId();
+
+            // 같은 주문의 마지막 행 다음 위치 찾기
+            int end = start + 1;
+            while (end < size && flats.get(end).getOrderId() == orderId) {
+                end++;
+            }
+
+            List<OrderItemQueryDto> orderItems = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                orderItems.add(toOrderItem(flats.get(i)));
+            }
+
+            result.add(toOrder(first, orderItems));
+            start = end;
+        }
+
+        return result;
+    }
+
+    public static Iterator<OrderQueryDto> group(Iterator<OrderFlatDto> flats) {
+        return new Iterator<>() {
+
+            // 다음 주문의 첫 행 (이전 주문을 묶으면서 미리 읽어둔 행)
+            private OrderFlatDto first = flats.hasNext() ? flats.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return first != null;
+            }
+
+            @Override
+            public OrderQueryDto next() {
+                if (first == null) {
+                    throw new NoSuchElementException();
+                }
+                OrderFlatDto order = first;
+                long orderId = order.getOrderId();
+
+                List<OrderItemQueryDto> orderItems = new ArrayList<>();
+                OrderFlatDto flat = order;
+                do {
+                    orderItems.add(toOrderItem(flat));
+                    flat = flats.hasNext() ? flats.next() : null;
+                } while (flat != null && flat.getOrderId() == orderId);
+
+                first = flat;
+                return toOrder(order, orderItems);
+            }
+        };
+    }
+
+    private static OrderItemQueryDto toOrderItem(OrderFlatDto flat) {
+        return new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount());
+    }
+
+    private static OrderQueryDto toOrder(OrderFlatDto first, List<OrderItemQueryDto> orderItems) {
+        return new OrderQueryDto(first.getOrderId(), first.getName(), first.getOrderDate(), first.getOrderStatus(), first.getAddress(), orderItems);
+    }
+}
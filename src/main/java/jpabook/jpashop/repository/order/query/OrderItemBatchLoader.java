@@ -0,0 +1,117 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 주문 id 목록으로 orderItems 를 IN 쿼리 묶음(chunk) 단위로 조회
+ * - id 개수와 상관없이 16, 64, 256 개짜리 IN 절만 사용한다.
+ * - 모자란 자리는 마지막 id 로 채워서 쿼리 모양이 3가지로 고정되므로 실행 계획 캐시를 재사용할 수 있다.
+ * - parallel 옵션을 켜면 chunk 마다 별도 커넥션으로 동시에 조회한다. (커밋된 데이터만 보인다)
+ */
+@Component
+public class OrderItemBatchLoader {
+
+    static final int[] CHUNK_SIZES = {16, 64, 256};
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final TaskExecutor taskExecutor;
+    private final boolean parallel;
+
+    public OrderItemBatchLoader(EntityManager em,
+                                EntityManagerFactory emf,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                @Value("${jpashop.batch-loader.parallel:false}") boolean parallel) {
+        this.em = em;
+        this.emf = emf;
+        this.taskExecutor = taskExecutor;
+        this.parallel = parallel;
+    }
+
+    public Map<Long, List<OrderItemQueryDto>> load(List<Long> orderIds) {
+        List<List<Long>> chunks = chunk(orderIds);
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = new HashMap<>(orderIds.size() * 4 / 3 + 1);
+
+        if (!parallel || chunks.size() < 2) {
+            chunks.forEach(chunk -> merge(orderItemMap, findOrderItems(em, chunk)));
+            return orderItemMap;
+        }
+
+        List<CompletableFuture<List<OrderItemQueryDto>>> futures = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> findOrderItemsWithNewConnection(chunk), taskExecutor))
+                .toList();
+        futures.forEach(future -> merge(orderItemMap, future.join()));
+        return orderItemMap;
+    }
+
+    /**
+     * 중복을 제거한 id 를 고정 크기 chunk 로 나누고 남는 자리는 마지막 id 로 채움
+     */
+    static List<List<Long>> chunk(List<Long> orderIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<List<Long>> chunks = new ArrayList<>();
+
+        int from = 0;
+        while (from < distinctIds.size()) {
+            int remaining = distinctIds.size() - from;
+            int chunkSize = chunkSize(remaining);
+            int to = from + Math.min(chunkSize, remaining);
+
+            List<Long> chunk = new ArrayList<>(chunkSize);
+            chunk.addAll(distinctIds.subList(from, to));
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < chunkSize) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+            from = to;
+        }
+        return chunks;
+    }
+
+    private static int chunkSize(int remaining) {
+        for (int size : CHUNK_SIZES) {
+            if (remaining <= size) {
+                return size;
+            }
+        }
+        return CHUNK_SIZES[CHUNK_SIZES.length - 1];
+    }
+
+    private List<OrderItemQueryDto> findOrderItemsWithNewConnection(List<Long> chunk) {
+        EntityManager chunkEm = emf.createEntityManager();
+        try {
+            return findOrderItems(chunkEm, chunk);
+        } finally {
+            chunkEm.close();
+        }
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> chunk) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count) " +
+                                "from OrderItem oi " +
+                                "join oi.item i " +
+                                "where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", chunk)
+                .getResultList();
+    }
+
+    private void merge(Map<Long, List<OrderItemQueryDto>> orderItemMap, List<OrderItemQueryDto> orderItems) {
+        for (OrderItemQueryDto orderItem : orderItems) {
+            orderItemMap.computeIfAbsent(orderItem.getOrderId(), id -> new ArrayList<>()).add(orderItem);
+        }
+    }
+}
@@ -7,44 +7,31 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
     private final EntityManager em;
+    private final OrderItemBatchLoader orderItemBatchLoader;
 
     /**
      * 컬렉션은 별도로 조회
-     * Query: 루트 1번, 컬렉션 N 번
-     * 단건 조회에서 많이 사용하는 방식
+     * Query: 루트 1번, 컬렉션 N 번 -> 루트 1번, 컬렉션 N / 256 번
+     * 주문마다 컬렉션을 조회하던 루프를 고정 크기 IN 쿼리 묶음 조회로 변경
      */
     public List<OrderQueryDto> findOrderQueryDtos() {
         // 루트 조회(toOne 코드를 모두 한번에 조회)
         List<OrderQueryDto> result = findOrders();
 
-        // 루프를 돌면서 컬렉션 추가 (추가 쿼리 실행)
-        result.forEach(o -> {
-            List<OrderItemQueryDto> orderItems = findOrderItems(o.getOrderId());
-            o.setOrderItems(orderItems);
-        });
+        // 컬렉션을 chunk 단위로 조회 후 추가
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItemBatchLoader.load(toOrderIds(result));
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of())));
 
         return result;
     }
 
-    /**
-     * 1:N 관계인 orderItems 조회
-     */
-    private List<OrderItemQueryDto> findOrderItems(Long orderId) {
-        return em.createQuery(
-                "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count) " +
-                        "from OrderItem oi " +
-                        "join oi.item i " +
-                        "where oi.order.id = :orderId", OrderItemQueryDto.class)
-                .setParameter("orderId", orderId)
-                .getResultList();
-    }
-
     /**
      * 1:N 관계(컬렉션)를 제외한 나머지를 한번에 조회
      */
@@ -59,35 +46,13 @@ public class OrderQueryRepository {
 
     /**
      * 최적화
-     * Query: 루트 1번, 컬렉션 1번
+     * Query: 루트 1번, 컬렉션 1번 (주문 256 건 마다 1번)
      * 데이터를 한꺼번에 처리할 때 많이 사용하는 방식
-     *
+     * - 모든 id 를 IN 절 하나에 넣으면 DB 파라미터 제한에 걸리고 쿼리 모양이 매번 달라지므로 chunk 단위로 조회
      */
     public List<OrderQueryDto> findAllByDto_optimization() {
-        //루트 조회(toOne 코드를 모두 한번에 조회)
-        List<OrderQueryDto> result = findOrders();
-
-        //orderItem 컬렉션을 MAP 한방에 조회
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
-
-        //루프를 돌면서 컬렉션 추가(추가 쿼리 실행X)
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
-
-        return result;
-    }
-
-    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count) " +
-                                "from OrderItem oi " +
-                                "join oi.item i " +
-                                "where oi.order.id in :orderIds", OrderItemQueryDto.class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
-
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
-                .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
-        return orderItemMap;
+        // 컬렉션 묶음 조회로 바뀐 findOrderQueryDtos() 와 같은 방식이므로 그대로 사용 (V4, V5 는 API 구분을 위해 남겨둔다)
+        return findOrderQueryDtos();
     }
 
     private List<Long> toOrderIds(List<OrderQueryDto> result) {
@@ -97,6 +62,9 @@ public class OrderQueryRepository {
         return orderIds;
     }
 
+    /**
+     * 주문 단위로 묶을 수 있도록 주문 id 순으로 정렬
+     */
     public List<OrderFlatDto> findAllByDto_flat() {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
@@ -104,7 +72,28 @@ public class OrderQueryRepository {
                         "join o.member m " +
                         "join o.delivery d " +
                         "join o.orderItems oi " +
-                        "join oi.item i", OrderFlatDto.class)
+                        "join oi.item i " +
+                        "order by o.id", OrderFlatDto.class)
                 .getResultList();
     }
+
+    /**
+     * 플랫 데이터를 커서로 한 줄씩 조회
+     * - 전체 결과를 List 로 올리지 않고 fetchSize 만큼씩 읽어온다.
+     * - 주문 단위로 묶을 수 있도록 주문 id 순으로 정렬
+     * - 트랜잭션 안에서 사용하고 다 쓰면 반드시 close
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat(int fetchSize) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        "from Order o " +
+                        "join o.member m " +
+                        "join o.delivery d " +
+                        "join o.orderItems oi " +
+                        "join oi.item i " +
+                        "order by o.id", OrderFlatDto.class)
+                .setHint("org.hibernate.fetchSize", fetchSize)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+    }
 }
@@ -0,0 +1,63 @@
+package jpabook.jpashop.repository.order.view;
+
+import jakarta.persistence.*;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회 모델 (order_view)
+ * - 주문, 회원, 배송, 주문상품, 상품을 주문 한 건당 한 행으로 펼쳐 둔 것
+ * - 주문상품은 응답 형태(OrderItemQueryDto 목록) 그대로 JSON 으로 저장
+ * - 주문이 바뀐 트랜잭션 안에서 같이 갱신된다. (OrderViewProjector)
+ */
+@Entity
+@Getter
+@Table(name = "order_view", indexes = @Index(name = "idx_order_view_member_id", columnList = "member_id"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderView {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String memberName;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Embedded
+    private Address address;
+
+    private int totalPrice;
+
+    private int itemCount;
+
+    @Lob
+    private String orderItems;
+
+    public OrderView(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public void update(Long memberId, String memberName, LocalDateTime orderDate, OrderStatus status, Address address,
+                       int totalPrice, int itemCount, String orderItems) {
+        this.memberId = memberId;
+        this.memberName = memberName;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.address = address;
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+        this.orderItems = orderItems;
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.repository.order.view;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderViewRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderView orderView) {
+        em.persist(orderView);
+    }
+
+    public OrderView findOne(Long orderId) {
+        return em.find(OrderView.class, orderId);
+    }
+
+    public List<OrderView> findAllByIds(List<Long> orderIds) {
+        return em.createQuery("select v from OrderView v where v.orderId in :orderIds", OrderView.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * after 다음 주문부터 limit 건 (PK 범위 스캔 한 번, 조인 없음)
+     */
+    public List<OrderView> findPage(Long after, int limit) {
+        return em.createQuery(
+                        "select v from OrderView v " +
+                                "where v.orderId > :after " +
+                                "order by v.orderId", OrderView.class)
+                .setParameter("after", after == null ? 0L : after)
+                .setMaxResults(limit)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList();
+    }
+
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderView v set v.memberName = :memberName where v.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    public int deleteAll() {
+        return em.createQuery("delete from OrderView").executeUpdate();
+    }
+
+    public long count() {
+        return em.createQuery("select count(v) from OrderView v", Long.class).getSingleResult();
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.support.search.NGramIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.stream.Stream;
+
+/**
+ * 회원 이름 부분 문자열 검색 색인
+ * - 기동 후 전체 회원을 한 번 읽어서 만들고, 가입/이름 변경은 커밋 후에 반영한다.
+ * - MemberService 를 거치지 않고 바뀐 회원(직접 insert, 대량 생성)은 rebuild() 전까지 보이지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+    private final EntityManagerFactory emf;
+    private final NGramIndex index = new NGramIndex();
+    private volatile boolean ready;
+
+    public MemberNameIndex(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        try (Stream<Object[]> rows = em.createQuery("select m.id, m.name from Member m", Object[].class)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .getResultStream()) {
+            index.clear();
+            rows.forEach(row -> index.put((Long) row[0], (String) row[1]));
+        } finally {
+            em.close();
+        }
+        ready = true;
+        log.info("member name index built. members={}, {}ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋 후에, 아니면 바로 반영
+     */
+    public void indexAfterCommit(Long memberId, String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index.put(memberId, name);
+                }
+            });
+        } else {
+            index.put(memberId, name);
+        }
+    }
+
+    /**
+     * 이름에 name 이 포함된 회원 id (오름차순)
+     */
+    public long[] search(String name) {
+        return index.search(name);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
@@ -0,0 +1,7 @@
+package jpabook.jpashop.service;
+
+/**
+ * 회원 이름 변경 (주문 조회 모델 갱신용)
+ */
+public record MemberRenamedEvent(Long memberId, String name) {
+}
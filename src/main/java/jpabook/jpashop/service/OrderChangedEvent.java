@@ -0,0 +1,16 @@
+package jpabook.jpashop.service;
+
+/**
+ * 주문 생성, 상태 변경 (주문 조회 모델 갱신용)
+ * - created: 새 주문이면 조회 모델을 조회하지 않고 바로 insert
+ */
+public record OrderChangedEvent(Long orderId, boolean created) {
+
+    public static OrderChangedEvent created(Long orderId) {
+        return new OrderChangedEvent(orderId, true);
+    }
+
+    public static OrderChangedEvent changed(Long orderId) {
+        return new OrderChangedEvent(orderId, false);
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderFlatGrouping;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 주문 전체 내보내기 (NDJSON)
+     * - 커서로 읽은 플랫 데이터를 주문 단위로 묶어서 한 줄씩 바로 출력
+     * - 주문 하나 분량만 메모리에 유지하므로 결과 크기와 상관없이 메모리 사용량이 일정하다.
+     */
+    public void exportOrders(OutputStream out) throws IOException {
+        try (Stream<OrderFlatDto> flats = orderQueryRepository.streamAllByDto_flat(FETCH_SIZE)) {
+
+            // 주문 id 순으로 정렬되어 있으므로 id 가 바뀌면 이전 주문은 완성 (V6 와 같은 묶음 규칙)
+            Iterator<OrderQueryDto> orders = OrderFlatGrouping.group(flats.iterator());
+            int count = 0;
+            while (orders.hasNext()) {
+                writeLine(out, orders.next());
+
+                // 영속성 컨텍스트가 계속 커지지 않도록 주기적으로 비움
+                if (++count % CLEAR_INTERVAL == 0) {
+                    em.clear();
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    private void writeLine(OutputStream out, OrderQueryDto order) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(order));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,165 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 접수 대기열 (group commit)
+ * - 요청은 크기가 정해진 대기열에 넣고 바로 CompletableFuture 를 돌려준다. (가득 차면 RejectedExecutionException)
+ * - 쓰기 스레드 하나가 최대 maxBatchSize 건, 또는 첫 요청부터 maxWait 동안 모인 요청을 OrderService.groupOrder 트랜잭션 한번으로 반영
+ * - 커밋된 뒤에 요청별로 주문 id, 재고가 부족하면 NotEnoughStockException 으로 완료
+ * - 묶음이 통째로 실패하면 (없는 회원/상품, 락 타임아웃 등) 한 건씩 다시 반영해서 원인 요청만 실패시킨다.
+ */
+@Slf4j
+@Component
+public class OrderIntake {
+
+    private final OrderService orderService;
+    private final BlockingQueue<Request> queue;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public OrderIntake(OrderService orderService,
+                       @Value("${jpashop.order-intake.capacity:10000}") int capacity,
+                       @Value("${jpashop.order-intake.max-batch-size:200}") int maxBatchSize,
+                       @Value("${jpashop.order-intake.max-wait-ms:2}") long maxWaitMillis) {
+        this.orderService = orderService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.writer = new Thread(this::run, "order-intake");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * 주문 접수
+     */
+    public CompletableFuture<Long> submit(Long memberId, Long itemId, int count) {
+        Request request = new Request(new OrderCommand(memberId, itemId, count), new CompletableFuture<>());
+        if (!running || !queue.offer(request)) {
+            request.future().completeExceptionally(new RejectedExecutionException("주문 접수 대기열이 가득 찼습니다."));
+        } else if (!running && queue.remove(request)) {
+            // 종료 중에 들어온 요청
+            request.future().completeExceptionally(new RejectedExecutionException("주문 접수가 종료되었습니다."));
+        }
+        return request.future();
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                apply(batch);
+            } catch (InterruptedException e) {
+                // 모으는 중에 중단되면 아직 반영하지 않은 요청이므로 거절로 완료
+                Thread.currentThread().interrupt();
+                batch.forEach(r -> r.future().completeExceptionally(new RejectedExecutionException("주문 접수가 중단되었습니다.")));
+                break;
+            } catch (RuntimeException e) {
+                log.error("order intake failed. batch={}", batch.size(), e);
+                batch.forEach(r -> r.future().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * maxBatchSize 가 차거나 첫 요청부터 maxWait 이 지날 때까지 모으기
+     */
+    private void collect(List<Request> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void apply(List<Request> batch) {
+        List<Long> orderIds;
+        try {
+            orderIds = orderService.groupOrder(batch.stream().map(Request::command).toList());
+        } catch (RuntimeException e) {
+            log.warn("order intake batch failed, retrying one by one. batch={}", batch.size(), e);
+            batch.forEach(this::applyOne);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), orderIds.get(i));
+        }
+    }
+
+    private void applyOne(Request request) {
+        try {
+            complete(request, orderService.groupOrder(List.of(request.command())).get(0));
+        } catch (RuntimeException e) {
+            request.future().completeExceptionally(e);
+        }
+    }
+
+    private void complete(Request request, Long orderId) {
+        if (orderId == null) {
+            request.future().completeExceptionally(new NotEnoughStockException("need more stock"));
+        } else {
+            request.future().complete(orderId);
+        }
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * 종료 전에 대기 중인 요청 반영 (끝나지 않으면 남은 요청은 거절)
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future().completeExceptionally(new RejectedExecutionException("주문 접수가 종료되었습니다."));
+        }
+    }
+
+    private record Request(OrderCommand command, CompletableFuture<Long> future) {
+    }
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.support.coalesce.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * 주문 목록 조회 합치기 (V4 simple-orders, V5 orders)
+ * - 같은 목록을 동시에 요청하면 DB 조회는 한 번, 결과는 모두 같이 받는다.
+ * - jpashop.single-flight.ttl-ms 동안 결과 재사용, stale-ms 동안은 이전 결과를 주면서 백그라운드에서 다시 조회 (기본 0, 동시 요청만 합침)
+ */
+@Service
+public class OrderQueryCoalescer {
+
+    private static final String ALL = "all";
+
+    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService refreshExecutor;
+    private final SingleFlight<String, List<OrderSimpleQueryDto>> simpleOrders;
+    private final SingleFlight<String, List<OrderQueryDto>> orders;
+
+    public OrderQueryCoalescer(OrderSimpleQueryRepository orderSimpleQueryRepository,
+                               OrderQueryRepository orderQueryRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${jpashop.single-flight.ttl-ms:0}") long ttlMillis,
+                               @Value("${jpashop.single-flight.stale-ms:0}") long staleMillis) {
+        this.orderSimpleQueryRepository = orderSimpleQueryRepository;
+        this.orderQueryRepository = orderQueryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "single-flight-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Duration ttl = Duration.ofMillis(ttlMillis);
+        Duration stale = Duration.ofMillis(staleMillis);
+        this.simpleOrders = new SingleFlight<>("simple-orders", meterRegistry, ttl, stale, refreshExecutor);
+        this.orders = new SingleFlight<>("orders", meterRegistry, ttl, stale, refreshExecutor);
+    }
+
+    public List<OrderSimpleQueryDto> findOrderDtos() {
+        return simpleOrders.get(ALL, readOnly(orderSimpleQueryRepository::findOrderDtos));
+    }
+
+    public List<OrderQueryDto> findAllByDto_optimization() {
+        return orders.get(ALL, readOnly(orderQueryRepository::findAllByDto_optimization));
+    }
+
+    /**
+     * 백그라운드 재조회는 요청 스레드의 영속성 컨텍스트가 없으므로 읽기 전용 트랜잭션으로 (이미 트랜잭션이 있으면 참여)
+     */
+    private <T> Supplier<T> readOnly(Supplier<T> query) {
+        return () -> readOnlyTransaction.execute(status -> query.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
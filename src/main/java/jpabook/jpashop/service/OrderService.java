@@ -5,26 +5,40 @@ import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.support.retry.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class OrderService {
 
+    private static final int MAX_MEMBER_CANDIDATES = 5000;
+
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final StockLedger stockLedger;
+    private final StockBucketService stockBucketService;
+    private final MemberNameIndex memberNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 주문
@@ -34,6 +48,7 @@ public class OrderService {
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
         Item item = itemRepository.findOne(itemId);
+        stockLedger.checkNotTracked(List.of(itemId));
 
         // 배송 정보 생성
         Delivery delivery = new Delivery();
@@ -47,57 +62,274 @@ public class OrderService {
 
         // 주문 저장
         orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
 
         return order.getId();
     }
 
+    /**
+     * 장바구니 주문 (여러 상품)
+     * - 모든 상품을 id 순서로 한번에 락 획득 (데드락 방지)
+     * - 모든 줄의 재고를 먼저 확인하고, 하나라도 부족하면 아무것도 차감하지 않는다.
+     */
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> orderLines) {
+        // 같은 상품이 여러 줄이면 수량 합치기
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (OrderLine orderLine : orderLines) {
+            counts.merge(orderLine.getItemId(), orderLine.getCount(), Integer::sum);
+        }
+
+        // 엔티티 조회
+        Member member = memberRepository.findOne(memberId);
+        Map<Long, Item> items = findAllForUpdate(counts.keySet());
+        stockLedger.checkNotTracked(counts.keySet());
+
+        // 재고 확인
+        counts.forEach((itemId, count) -> {
+            if (items.get(itemId).getStockQuantity() < count) {
+                throw new NotEnoughStockException("need more stock");
+            }
+        });
+
+        // 배송 정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문 상품 생성
+        List<OrderItem> orderItems = new ArrayList<>(counts.size());
+        counts.forEach((itemId, count) -> {
+            Item item = items.get(itemId);
+            orderItems.add(OrderItem.createOrderItem(item, item.getPrice(), count));
+            item.removeStock(count);
+        });
+
+        // 주문 생성
+        Order order = Order.createOrder(member, delivery, orderItems.toArray(new OrderItem[0]));
+
+        // 주문 저장
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+        return order.getId();
+    }
+
+    private Map<Long, Item> findAllForUpdate(Collection<Long> itemIds) {
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllForUpdate(itemIds)) {
+            items.put(item.getId(), item);
+        }
+
+        if (items.size() != new HashSet<>(itemIds).size()) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다.");
+        }
+        return items;
+    }
+
+    /**
+     * 주문 - 낙관적 락
+     * - version 충돌이 나면 @OptimisticRetry 가 새 트랜잭션에서 상품을 다시 조회해서 재시도
+     */
+    @OptimisticRetry
     @Transactional
     public Long order2(Long memberId, Long itemId, int count) {
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
+        Item item = itemRepository.findOne2(itemId);
+        stockLedger.checkNotTracked(List.of(itemId));
+
+        // 배송 정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
 
+        // 주문 상품 생성
+        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        item.removeStock(count);
+
+        // 주문 생성
+        Order order = Order.createOrder(member, delivery, orderItem);
+
+        // 주문 저장
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+        return order.getId();
+    }
+
+    /**
+     * 주문 - 조건부 update
+     * - 상품을 락으로 조회하지 않고 "재고 >= 수량" 조건의 update 한번으로 차감
+     */
+    @Transactional
+    public Long orderWithConditionalUpdate(Long memberId, Long itemId, int count) {
+        // 재고 차감
+        if (!itemRepository.decreaseStock(itemId, count)) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        stockLedger.checkNotTracked(List.of(itemId));
+
+        // 엔티티 조회
+        Member member = memberRepository.findOne(memberId);
+        Item item = itemRepository.findOneWithoutLock(itemId);
 
         // 배송 정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
-        int retryCount = 0;
-        int maxRetries = 10;
-        Order order = null;
-        while (retryCount < maxRetries) {
-            try {
-                Item item = itemRepository.findOne2(itemId);
-
-                // 주문 상품 생성
-                System.out.println("주문 상품 생성 시도");
-                OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
-                item.removeStock(count);
-
-                // 주문 생성
-                System.out.println("주문 생성 시도");
-                order = Order.createOrder(member, delivery, orderItem);
-
-                // 주문 저장
-                orderRepository.save(order);
-
-                System.out.println("retryCount = " + retryCount);
-                break;
-            } catch (OptimisticLockingFailureException e) {
-                retryCount++;
-                if (retryCount >= maxRetries) {
-                    System.out.println("재시도 횟수 초과");
-                    throw e;
-                }
-                System.out.println("락획득 재시도 합니다.");
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ex) {
-                    throw new RuntimeException(ex);
-                }
+        // 주문 상품 생성
+        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+
+        // 주문 생성, 저장
+        Order order = Order.createOrder(member, delivery, orderItem);
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+        return order.getId();
+    }
+
+    /**
+     * 주문 - 재고 버킷
+     * - 상품 row 대신 상품 재고를 나눠 둔 버킷 row 하나만 잠그므로 같은 상품의 주문이 버킷 수만큼 동시에 진행된다.
+     * - StockBucketService.shard 로 재고를 나눈 상품만 주문 가능
+     */
+    @Transactional
+    public Long orderWithBuckets(Long memberId, Long itemId, int count) {
+        // 재고 차감
+        stockBucketService.take(itemId, count);
+
+        // 엔티티 조회
+        Member member = memberRepository.findOne(memberId);
+        Item item = itemRepository.findOneWithoutLock(itemId);
+
+        // 배송 정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문 상품 생성
+        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+
+        // 주문 생성, 저장
+        Order order = Order.createOrder(member, delivery, orderItem);
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+        return order.getId();
+    }
+
+    /**
+     * 주문 - 메모리 재고 예약
+     * - 상품 row 락 없이 StockLedger 에서 재고를 차감 (부족하면 DB 를 거치지 않고 바로 예외)
+     * - 차감된 재고는 StockLedger 가 주기적으로 모아서 DB 에 반영
+     * - 한 번 예약 주문한 상품은 다른 주문 경로에서 거절된다. (StockLedger 만 재고를 차감)
+     * - 예약 기록을 주문과 같이 커밋하므로 반영 전에 서버가 죽어도 재기동 후 반영된다. 단일 서버 전용 (StockLedger 참고)
+     */
+    @Transactional
+    public Long orderWithReservation(Long memberId, Long itemId, int count) {
+        // 재고 예약 (롤백되면 예약 취소)
+        stockLedger.reserve(itemId, count);
+
+        // 엔티티 조회
+        Member member = memberRepository.findOne(memberId);
+        Item item = itemRepository.findOneWithoutLock(itemId);
+
+        // 배송 정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문 상품 생성
+        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+
+        // 주문 생성, 저장
+        Order order = Order.createOrder(member, delivery, orderItem);
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+        return order.getId();
+    }
+
+    /**
+     * 대량 주문
+     * - 회원, 상품은 요청에 나온 id 별로 한번씩만 조회 (상품은 한번의 쿼리로 id 순서로 락 획득)
+     * - 주문/배송/주문상품 insert 는 커밋 시점에 jdbc batch 로 모아서 전송
+     */
+    @Transactional
+    public List<Long> bulkOrder(List<OrderCommand> commands) {
+        // 엔티티 조회
+        Map<Long, Item> items = findAllForUpdate(commands.stream()
+                .map(OrderCommand::getItemId)
+                .distinct()
+                .toList());
+        stockLedger.checkNotTracked(items.keySet());
+
+        Map<Long, Member> members = new HashMap<>();
+
+        List<Long> orderIds = new ArrayList<>(commands.size());
+        for (OrderCommand command : commands) {
+            Member member = members.computeIfAbsent(command.getMemberId(), memberRepository::findOne);
+            Item item = items.get(command.getItemId());
+
+            // 배송 정보 생성
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            // 주문 상품 생성
+            OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), command.getCount());
+            item.removeStock(command.getCount());
+
+            // 주문 생성, 저장
+            Order order = Order.createOrder(member, delivery, orderItem);
+            orderRepository.save(order);
+            eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+            orderIds.add(order.getId());
+        }
+
+        return orderIds;
+    }
+
+    /**
+     * 묶음 주문 (OrderIntake 가 모은 요청을 한 트랜잭션으로)
+     * - bulkOrder 와 같이 상품은 id 순서로 한번에 락, insert 는 jdbc batch
+     * - 재고가 부족한 요청만 건너뛰고 나머지는 주문한다. (결과의 같은 자리에 null)
+     * - 상품별 차감은 엔티티에 누적되어 커밋 시점에 상품당 update 한번
+     */
+    @Transactional
+    public List<Long> groupOrder(List<OrderCommand> commands) {
+        // 엔티티 조회
+        Map<Long, Item> items = findAllForUpdate(commands.stream()
+                .map(OrderCommand::getItemId)
+                .distinct()
+                .toList());
+        stockLedger.checkNotTracked(items.keySet());
+
+        Map<Long, Member> members = new HashMap<>();
+
+        List<Long> orderIds = new ArrayList<>(commands.size());
+        for (OrderCommand command : commands) {
+            Item item = items.get(command.getItemId());
+            if (item.getStockQuantity() < command.getCount()) {
+                orderIds.add(null);
+                continue;
             }
+            Member member = members.computeIfAbsent(command.getMemberId(), memberRepository::findOne);
+
+            // 배송 정보 생성
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            // 주문 상품 생성
+            OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), command.getCount());
+            item.removeStock(command.getCount());
+
+            // 주문 생성, 저장
+            Order order = Order.createOrder(member, delivery, orderItem);
+            orderRepository.save(order);
+            eventPublisher.publishEvent(OrderChangedEvent.created(order.getId()));
+
+            orderIds.add(order.getId());
         }
 
-        return order.getId();
+        return orderIds;
     }
 
     /**
@@ -110,12 +342,21 @@ public class OrderService {
 
         // 주문 취소
         order.cancel();
+        eventPublisher.publishEvent(OrderChangedEvent.changed(orderId));
     }
 
     /**
      * 주문 검색
+     * - 회원 이름 조건은 이름 색인에서 회원 id 를 먼저 찾고 member_id IN 으로 조회 (like '%name%' 전체 스캔 대신)
+     * - 이름이 흔해서 후보 회원이 MAX_MEMBER_CANDIDATES 명을 넘으면 IN 조회가 더 비싸므로 기존 검색으로 조회
      */
     public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findAllByString(orderSearch);
+        if (StringUtils.hasText(orderSearch.getMemberName()) && memberNameIndex.isReady()) {
+            long[] memberIds = memberNameIndex.search(orderSearch.getMemberName());
+            if (memberIds.length <= MAX_MEMBER_CANDIDATES) {
+                return orderRepository.findAllByMemberIds(memberIds, orderSearch.getOrderStatus(), 1000);
+            }
+        }
+        return orderRepository.search(orderSearch);
     }
 }
@@ -0,0 +1,141 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.view.OrderView;
+import jpabook.jpashop.repository.order.view.OrderViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 조회 모델(order_view) 갱신
+ * - 주문이 바뀐 트랜잭션의 커밋 직전에 같은 트랜잭션으로 반영한다. (롤백되면 조회 모델도 같이 롤백)
+ * - 주문상품의 상품 이름, 가격은 주문 시점 값으로 남는다.
+ * - rebuild(): 조회 모델을 비우고 주문 전체로 다시 만든다. (jpashop.order-view.rebuild-on-startup=true 면 기동 시)
+ *   재생성 중에 커밋된 주문은 위 리스너가 먼저 넣었을 수 있으므로 있는 행은 갱신한다.
+ */
+@Slf4j
+@Component
+public class OrderViewProjector {
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    public OrderViewProjector(OrderRepository orderRepository, OrderViewRepository orderViewRepository, EntityManager em,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                              @Value("${jpashop.order-view.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.orderRepository = orderRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void on(OrderChangedEvent event) {
+        project(orderRepository.findOne(event.orderId()), event.created());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void on(MemberRenamedEvent event) {
+        orderViewRepository.updateMemberName(event.memberId(), event.name());
+    }
+
+    /**
+     * @param created 새 주문이면 조회 모델이 없으므로 조회하지 않고 insert (묶음 주문에서 주문마다 select 가 늘지 않게)
+     */
+    private void project(Order order, boolean created) {
+        project(order, created ? null : orderViewRepository.findOne(order.getId()));
+    }
+
+    /**
+     * @param orderView 이미 있는 조회 모델, 없으면 null (새로 insert)
+     */
+    private void project(Order order, OrderView orderView) {
+        if (orderView == null) {
+            orderView = new OrderView(order.getId());
+            orderViewRepository.save(orderView);
+        }
+
+        List<OrderItemQueryDto> orderItems = order.getOrderItems().stream()
+                .map(oi -> new OrderItemQueryDto(order.getId(), oi.getItem().getName(), oi.getOrderPrice(), oi.getCount()))
+                .toList();
+        int itemCount = order.getOrderItems().stream().mapToInt(OrderItem::getCount).sum();
+
+        orderView.update(order.getMember().getId(), order.getMember().getName(), order.getOrderDate(), order.getStatus(),
+                order.getDelivery().getAddress(), order.getTotalPrice(), itemCount, toJson(orderItems));
+    }
+
+    private String toJson(List<OrderItemQueryDto> orderItems) {
+        try {
+            return objectMapper.writeValueAsString(orderItems);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("주문상품 직렬화에 실패했습니다.", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 조회 모델 재생성
+     * - 주문 id 순으로 REBUILD_CHUNK_SIZE 건씩 트랜잭션을 나눠서 반영
+     * - 비운 뒤 다시 채우는 동안에는 목록이 일부만 보인다.
+     * - 요청을 받는 중에 돌 수 있으므로 묶음마다 이미 있는 행을 한 번에 조회해서 갱신한다. (insert 만 하면 그사이 들어온 주문과 키 중복)
+     */
+    public long rebuild() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> orderViewRepository.deleteAll());
+
+        long count = 0;
+        Long after = 0L;
+        while (true) {
+            Long from = after;
+            List<Long> orderIds = transactionTemplate.execute(status -> {
+                List<Long> ids = orderRepository.findIdsAfter(from, REBUILD_CHUNK_SIZE);
+                if (!ids.isEmpty()) {
+                    Map<Long, OrderView> existing = orderViewRepository.findAllByIds(ids).stream()
+                            .collect(Collectors.toMap(OrderView::getOrderId, v -> v));
+                    orderRepository.findAllWithItemByIds(ids).forEach(order -> project(order, existing.get(order.getId())));
+                    em.flush();
+                }
+                return ids;
+            });
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            count += orderIds.size();
+            after = orderIds.get(orderIds.size() - 1);
+        }
+
+        log.info("order view rebuilt. orders={}, {}ms", count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+}
@@ -0,0 +1,172 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.StockBucket;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockBucketRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 재고 버킷
+ * - shard(): 상품 재고를 K 개 버킷으로 나눈다. (이후 이 상품은 OrderService.orderWithBuckets 로 주문)
+ * - 주문은 임의의 버킷 하나에서만 차감하므로 그 버킷 row 만 커밋까지 잠긴다. (상품 row 는 잠그지 않음)
+ * - 버킷 사이 수량이 한쪽으로 쏠리거나 취소로 상품에 재고가 돌아오면 주기적으로 다시 고르게 나눈다.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class StockBucketService {
+
+    private final StockBucketRepository stockBucketRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public StockBucketService(StockBucketRepository stockBucketRepository, ItemRepository itemRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.stockBucketRepository = stockBucketRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 상품 재고를 buckets 개로 나누기 (이미 나뉜 상품이면 버킷 수 변경)
+     */
+    @Transactional
+    public void shard(Long itemId, int buckets) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("버킷 수는 1 이상이어야 합니다.");
+        }
+
+        Item item = itemRepository.findOne(itemId);
+        List<StockBucket> existing = stockBucketRepository.findAllForUpdate(itemId);
+
+        int total = item.getStockQuantity();
+        for (StockBucket stockBucket : existing) {
+            total += stockBucket.getQuantity();
+        }
+        item.removeStock(item.getStockQuantity());
+
+        // 있는 버킷은 수량만 바꾸고, 모자라면 추가, 남으면 삭제
+        for (int bucketNo = 0; bucketNo < Math.max(buckets, existing.size()); bucketNo++) {
+            if (bucketNo >= buckets) {
+                stockBucketRepository.delete(existing.get(bucketNo));
+            } else if (bucketNo < existing.size()) {
+                existing.get(bucketNo).setQuantity(share(total, buckets, bucketNo));
+            } else {
+                stockBucketRepository.save(StockBucket.createStockBucket(item, bucketNo, share(total, buckets, bucketNo)));
+            }
+        }
+    }
+
+    /**
+     * 버킷에서 재고 차감
+     * - 임의의 버킷부터 차례로 조건부 update, 처음 성공한 버킷 하나에서만 차감
+     * - 수량만큼 남은 버킷이 없으면 (재고가 버킷들에 흩어진 경우) 버킷 전체를 잠그고 합쳐서 차감한 뒤 다시 나눈다.
+     */
+    @Transactional
+    public void take(Long itemId, int count) {
+        List<Long> bucketIds = stockBucketRepository.findIds(itemId);
+        if (bucketIds.isEmpty()) {
+            throw new IllegalStateException("재고가 버킷으로 나뉘지 않은 상품입니다. itemId=" + itemId);
+        }
+
+        if (!tryTake(bucketIds, count)) {
+            redistribute(itemId, count);
+        }
+    }
+
+    private boolean tryTake(List<Long> bucketIds, int count) {
+        int start = ThreadLocalRandom.current().nextInt(bucketIds.size());
+        for (int i = 0; i < bucketIds.size(); i++) {
+            if (stockBucketRepository.decrease(bucketIds.get((start + i) % bucketIds.size()), count)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 상품의 전체 재고 (상품 + 버킷)
+     */
+    public int totalStock(Long itemId) {
+        Integer stockQuantity = itemRepository.findStockQuantity(itemId);
+        if (stockQuantity == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return stockQuantity + stockBucketRepository.findQuantities(itemId).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 상품 재고와 버킷 수량을 모아서 버킷에 고르게 다시 나누기
+     * @return 전체 재고
+     */
+    @Transactional
+    public int rebalance(Long itemId) {
+        return redistribute(itemId, 0);
+    }
+
+    /**
+     * 상품 재고와 버킷 수량을 모아서 take 만큼 빼고 버킷에 고르게 나누기
+     * - 상품 row, 버킷 row 순서로 락 (주문은 버킷 하나만 잠그므로 데드락이 나지 않는다)
+     */
+    private int redistribute(Long itemId, int take) {
+        Item item = itemRepository.findOne(itemId);
+        List<StockBucket> buckets = stockBucketRepository.findAllForUpdate(itemId);
+
+        int total = item.getStockQuantity();
+        for (StockBucket stockBucket : buckets) {
+            total += stockBucket.getQuantity();
+        }
+        if (total < take) {
+            throw new NotEnoughStockException("need more stock");
+        }
+
+        int rest = total - take;
+        item.removeStock(item.getStockQuantity());
+        for (int i = 0; i < buckets.size(); i++) {
+            buckets.get(i).setQuantity(share(rest, buckets.size(), i));
+        }
+        return rest;
+    }
+
+    /**
+     * 쏠린 상품만 주기적으로 다시 나누기 (상품마다 트랜잭션 하나)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock-bucket.rebalance-interval:5000}")
+    public void rebalanceSkewed() {
+        List<Long> itemIds = transactionTemplate.execute(status -> stockBucketRepository.findItemIds());
+        for (Long itemId : itemIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (isSkewed(itemId)) {
+                    log.info("stock buckets rebalanced. itemId={}, total={}", itemId, rebalance(itemId));
+                }
+            });
+        }
+    }
+
+    private boolean isSkewed(Long itemId) {
+        Integer stockQuantity = itemRepository.findStockQuantity(itemId);
+        List<Integer> quantities = new ArrayList<>(stockBucketRepository.findQuantities(itemId));
+        if (stockQuantity == null || quantities.isEmpty()) {
+            return false;
+        }
+
+        int min = quantities.stream().mapToInt(Integer::intValue).min().orElse(0);
+        int max = quantities.stream().mapToInt(Integer::intValue).max().orElse(0);
+        return stockQuantity > 0 || (max > 1 && min * 2 < max);
+    }
+
+    private static int share(int total, int buckets, int bucketNo) {
+        return total / buckets + (bucketNo < total % buckets ? 1 : 0);
+    }
+}
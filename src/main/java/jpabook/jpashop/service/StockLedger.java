@@ -0,0 +1,261 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.StockReservation;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 메모리 재고 예약 장부
+ * - 주문 시 DB 락 없이 상품별 StripedStock 에서 재고를 차감하고, 부족하면 바로 거절한다.
+ * - 차감할 때 예약 기록(StockReservation)을 주문 트랜잭션에 같이 저장하므로 커밋된 주문의 차감분은 서버가 죽어도 남는다.
+ * - 주기적으로 커밋된 예약 기록을 상품별 update 한번으로 모아서 Item.stockQuantity 에 반영하고, 반영한 기록은 같은 트랜잭션에서 지운다.
+ *   (커밋되지 않은 예약은 보이지 않으므로 반영되지 않는다)
+ * - 기동 시 남은 예약 기록을 먼저 반영하고, 장부에 올릴 때도 반영되지 않은 예약 기록만큼 뺀 재고로 시작한다.
+ * - 반영할 때 DB 재고를 다시 읽어서 장부 밖에서 바뀐 재고(상품 수정, 주문 취소)를 장부에 맞춘다.
+ * - 장부에 올라간 상품은 장부만 재고를 차감한다. 다른 주문 경로는 checkNotTracked 로 거절해야 한다. (DB 재고는 반영 주기만큼 늦다)
+ * - 단일 서버 전용: 서버가 여러 대면 서로의 예약을 모르므로 초과 판매된다.
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+    private final ItemRepository itemRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ItemStock> stocks = new ConcurrentHashMap<>();
+
+    public StockLedger(ItemRepository itemRepository, StockReservationRepository stockReservationRepository,
+                       PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 반영은 항상 별도 트랜잭션 (호출한 쪽의 커밋되지 않은 예약 기록이 섞이지 않게)
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 재고 예약
+     * - 예약 기록을 호출한 트랜잭션에 저장하므로 트랜잭션 안에서 호출해야 한다.
+     * - 롤백되면 예약을 되돌리고, 커밋되면 다음 반영 때 DB 재고에 반영된다.
+     */
+    public void reserve(Long itemId, int count) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("재고 예약은 트랜잭션 안에서 호출해야 합니다. itemId=" + itemId);
+        }
+
+        ItemStock stock = track(itemId);
+        if (!stock.available.tryRemove(count)) {
+            throw new NotEnoughStockException("need more stock");
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    stock.committed.add(count);
+                } else {
+                    stock.available.add(count);
+                }
+            }
+        });
+        stockReservationRepository.save(StockReservation.createStockReservation(itemId, count));
+    }
+
+    /**
+     * 장부에 없는 상품이면 읽어서 올린다.
+     * - 상품 row 락을 기다리는 동안 맵을 잠그지 않도록 computeIfAbsent 밖에서 읽고, 먼저 올라간 값이 있으면 그 값을 쓴다.
+     */
+    private ItemStock track(Long itemId) {
+        ItemStock stock = stocks.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+        ItemStock loaded = load(itemId);
+        stock = stocks.putIfAbsent(itemId, loaded);
+        return stock != null ? stock : loaded;
+    }
+
+    /**
+     * 상품 row 를 잠그고 반영되지 않은 예약 기록을 뺀 재고를 읽는다.
+     * - 다른 경로의 주문이 먼저 락을 잡았으면 그 주문이 끝난 재고를 읽고, 나중에 락을 잡은 주문은 checkNotTracked 에서 거절된다.
+     */
+    private ItemStock load(Long itemId) {
+        Item item = itemRepository.findOneForceIncrement(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return new ItemStock(item.getStockQuantity() - stockReservationRepository.sumCount(itemId));
+    }
+
+    public boolean isTracked(Long itemId) {
+        return stocks.containsKey(itemId);
+    }
+
+    /**
+     * 장부가 관리하는 상품을 다른 경로로 주문하지 못하게 거절
+     * - 상품 row 락(또는 update)을 잡은 뒤에 호출해야 장부에 올라가는 중인 상품과 겹치지 않는다.
+     */
+    public void checkNotTracked(Collection<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            if (isTracked(itemId)) {
+                throw new IllegalStateException("재고 장부에서 관리하는 상품입니다. 예약 주문으로만 주문할 수 있습니다. itemId=" + itemId);
+            }
+        }
+    }
+
+    public void release(Long itemId, int count) {
+        ItemStock stock = stocks.get(itemId);
+        if (stock != null) {
+            stock.available.add(count);
+        }
+    }
+
+    public long available(Long itemId) {
+        ItemStock stock = stocks.get(itemId);
+        if (stock != null) {
+            return stock.available.available();
+        }
+        Integer stockQuantity = itemRepository.findStockQuantity(itemId);
+        if (stockQuantity == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return stockQuantity - stockReservationRepository.sumCount(itemId);
+    }
+
+    /**
+     * 기동 시 이전 실행에서 커밋됐지만 반영되지 못한 예약 기록을 반영
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        flush();
+    }
+
+    /**
+     * 커밋된 예약 기록을 DB 재고에 반영
+     * - 예약 기록 반영과 삭제를 한 트랜잭션에서 하므로 실패하면 다음 반영 때 같은 기록을 다시 반영한다.
+     * - 장부의 기준값은 커밋된 뒤에만 옮긴다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock-ledger.flush-interval:1000}")
+    public synchronized void flush() {
+        // 반영 전에 커밋이 집계된 예약 수량 (이후 커밋분이 먼저 반영되면 잠시 덜 팔고 다음 반영 때 맞춰진다)
+        Map<Long, ItemStock> tracked = new HashMap<>(stocks);
+        Map<Long, Long> committed = new HashMap<>();
+        tracked.forEach((itemId, stock) -> committed.put(itemId, stock.committed.sum()));
+
+        Map<Long, Long> available = transactionTemplate.execute(status -> {
+            apply(stockReservationRepository.findAll());
+            return availableInDb(tracked.keySet());
+        });
+
+        tracked.forEach((itemId, stock) -> {
+            Long dbAvailable = available.get(itemId);
+            // 삭제된 상품은 장부에서 제거
+            if (dbAvailable == null) {
+                stocks.remove(itemId, stock);
+                return;
+            }
+
+            // 장부 밖에서 바뀐 재고 맞추기 (지난 반영 이후 커밋된 예약만큼만 줄었어야 한다)
+            long expected = stock.flushed - (committed.get(itemId) - stock.flushedCommitted);
+            long external = dbAvailable - expected;
+            if (external != 0) {
+                stock.available.add(external);
+                log.info("stock reconciled. itemId={}, diff={}", itemId, external);
+            }
+            stock.flushed = dbAvailable;
+            stock.flushedCommitted = committed.get(itemId);
+        });
+    }
+
+    private void apply(List<StockReservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        reservations.stream()
+                .collect(Collectors.groupingBy(StockReservation::getItemId, Collectors.summingLong(StockReservation::getCount)))
+                .forEach(this::removeStockQuantity);
+        stockReservationRepository.deleteAll(reservations.stream().map(StockReservation::getId).toList());
+    }
+
+    /**
+     * 장부가 이미 판 만큼 DB 재고가 없으면 (장부 밖에서 재고를 줄인 경우) 0 까지만 차감
+     */
+    private void removeStockQuantity(Long itemId, long count) {
+        if (itemRepository.removeStockQuantity(itemId, count)) {
+            return;
+        }
+        Integer stockQuantity = itemRepository.findStockQuantity(itemId);
+        if (stockQuantity == null) {
+            return; // 삭제된 상품
+        }
+        log.error("stock oversold. itemId={}, delta={}, stockQuantity={}", itemId, count, stockQuantity);
+        if (stockQuantity > 0) {
+            itemRepository.removeStockQuantity(itemId, stockQuantity);
+        }
+    }
+
+    /**
+     * 반영 후 DB 재고 - 그사이 커밋되어 아직 반영되지 않은 예약, 삭제된 상품은 null
+     */
+    private Map<Long, Long> availableInDb(Collection<Long> itemIds) {
+        Map<Long, Long> result = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, Long> pending = stockReservationRepository.sumCountByItem();
+        for (Long itemId : itemIds) {
+            Integer stockQuantity = itemRepository.findStockQuantity(itemId);
+            result.put(itemId, stockQuantity == null ? null : stockQuantity - pending.getOrDefault(itemId, 0L));
+        }
+        return result;
+    }
+
+    /**
+     * 종료 전에 커밋된 예약 반영 (반영하지 못해도 예약 기록이 남아 다음 기동 때 반영된다)
+     */
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private static class ItemStock {
+
+        private final StripedStock available;
+
+        // 커밋된 예약 수량 누계
+        private final LongAdder committed = new LongAdder();
+
+        // 마지막 반영 시점의 DB 재고 - 반영되지 않은 예약 (flush 스레드에서만 변경)
+        private volatile long flushed;
+
+        // 마지막 반영 시점까지 집계된 커밋 예약 누계 (flush 스레드에서만 변경)
+        private volatile long flushedCommitted;
+
+        ItemStock(long quantity) {
+            this.available = new StripedStock(quantity);
+            this.flushed = quantity;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package jpabook.jpashop.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 상품 하나의 가용 재고를 여러 칸(cell)에 나눠서 보관
+ * - 스레드마다 다른 칸에서 CAS 로 차감하므로 같은 상품에 주문이 몰려도 경합이 코어 수만큼 분산된다.
+ * - 한 칸으로 부족할 때만 모든 칸에서 모아서 차감 (이 경우만 직렬화)
+ */
+public class StripedStock {
+
+    // 칸 사이를 캐시 라인(64 byte) 만큼 띄워서 false sharing 방지
+    private static final int PADDING = 8;
+
+    private final int cellCount;
+    private final AtomicLongArray cells;
+
+    public StripedStock(long quantity) {
+        this(quantity, defaultCellCount());
+    }
+
+    public StripedStock(long quantity, int cellCount) {
+        this.cellCount = cellCount;
+        this.cells = new AtomicLongArray(cellCount * PADDING);
+        for (int i = 0; i < cellCount; i++) {
+            cells.set(index(i), quantity / cellCount + (i < quantity % cellCount ? 1 : 0));
+        }
+    }
+
+    private static int defaultCellCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.min(64, Integer.highestOneBit(Math.max(1, processors - 1)) << 1);
+    }
+
+    /**
+     * 재고 차감 시도
+     * @return 재고가 부족하면 false (차감하지 않음)
+     */
+    public boolean tryRemove(long quantity) {
+        int start = ThreadLocalRandom.current().nextInt(cellCount);
+        for (int k = 0; k < cellCount; k++) {
+            int i = index((start + k) % cellCount);
+            long current = cells.get(i);
+            while (current >= quantity) {
+                if (cells.compareAndSet(i, current, current - quantity)) {
+                    return true;
+                }
+                current = cells.get(i);
+            }
+        }
+        return removeAcrossCells(quantity);
+    }
+
+    /**
+     * 여러 칸에 흩어진 재고를 모아서 차감
+     */
+    private synchronized boolean removeAcrossCells(long quantity) {
+        long taken = 0;
+        for (int k = 0; k < cellCount && taken < quantity; k++) {
+            taken += cells.getAndSet(index(k), 0);
+        }
+
+        if (taken < quantity) {
+            cells.addAndGet(index(0), taken);
+            return false;
+        }
+
+        cells.addAndGet(index(0), taken - quantity);
+        return true;
+    }
+
+    public void add(long quantity) {
+        cells.addAndGet(index(ThreadLocalRandom.current().nextInt(cellCount)), quantity);
+    }
+
+    /**
+     * 전체 가용 재고 (동시에 차감 중이면 근사값)
+     */
+    public long available() {
+        long sum = 0;
+        for (int k = 0; k < cellCount; k++) {
+            sum += cells.get(index(k));
+        }
+        return sum;
+    }
+
+    private int index(int cell) {
+        return cell * PADDING;
+    }
+}
@@ -0,0 +1,166 @@
+package jpabook.jpashop.support.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 동시 조회를 한 번으로 합치기 (single-flight)
+ * - 조회 중인 키로 들어온 요청은 새로 조회하지 않고 먼저 온 요청(leader)의 결과를 같이 받는다. (예외도 같이)
+ * - ttl 동안은 결과를 그대로 재사용, 그 뒤 staleWhileRevalidate 동안은 이전 결과를 바로 돌려주고 refreshExecutor 에서 한 번만 다시 조회
+ * - ttl, staleWhileRevalidate 가 모두 0 이면 조회가 끝나는 즉시 결과를 버린다. (동시 요청만 합침)
+ * - 결과 객체를 여러 요청이 같이 쓰므로 받은 쪽에서 수정하면 안 된다.
+ * - 메트릭: single-flight.requests (name, outcome=leader|coalesced|fresh|stale), single-flight.coalescing-ratio (name)
+ */
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Executor refreshExecutor;
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter fresh;
+    private final Counter stale;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry, Duration ttl, Duration staleWhileRevalidate, Executor refreshExecutor) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleWhileRevalidate.toNanos();
+        this.refreshExecutor = refreshExecutor;
+
+        this.leaders = requests(meterRegistry, "leader");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.fresh = requests(meterRegistry, "fresh");
+        this.stale = requests(meterRegistry, "stale");
+        Gauge.builder("single-flight.coalescing-ratio", this, SingleFlight::coalescingRatio)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.counter("single-flight.requests", "name", name, "outcome", outcome);
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        while (true) {
+            Flight<V> flight = flights.get(key);
+
+            if (flight == null) {
+                Flight<V> next = new Flight<>();
+                if (flights.putIfAbsent(key, next) == null) {
+                    return lead(key, next, loader);
+                }
+                continue;
+            }
+
+            if (!flight.future.isDone()) {
+                coalesced.increment();
+                return join(flight.future);
+            }
+
+            long age = System.nanoTime() - flight.loadedAt;
+            if (age < ttlNanos) {
+                fresh.increment();
+                return flight.future.join();
+            }
+            if (age < ttlNanos + staleNanos) {
+                stale.increment();
+                refresh(key, flight, loader);
+                return flight.future.join();
+            }
+
+            // 만료
+            Flight<V> next = new Flight<>();
+            if (flights.replace(key, flight, next)) {
+                return lead(key, next, loader);
+            }
+        }
+    }
+
+    /**
+     * leader 를 뺀 나머지(합쳐지거나 재사용된 요청) 비율
+     */
+    public double coalescingRatio() {
+        double total = leaders.count() + coalesced.count() + fresh.count() + stale.count();
+        return total == 0 ? 0 : 1 - leaders.count() / total;
+    }
+
+    private V lead(K key, Flight<V> flight, Supplier<V> loader) {
+        leaders.increment();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(e);
+            throw e;
+        }
+
+        flight.loadedAt = System.nanoTime();
+        flight.future.complete(value);
+        if (ttlNanos + staleNanos == 0) {
+            flights.remove(key, flight);
+        }
+        return value;
+    }
+
+    private void refresh(K key, Flight<V> flight, Supplier<V> loader) {
+        if (!flight.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    V value = loader.get();
+                    flights.replace(key, flight, Flight.completed(value));
+                } catch (RuntimeException e) {
+                    log.warn("single-flight refresh failed. name={}, key={}", name, key, e);
+                    flight.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flight.refreshing.set(false);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long loadedAt;
+
+        private static <V> Flight<V> completed(V value) {
+            Flight<V> flight = new Flight<>();
+            flight.loadedAt = System.nanoTime();
+            flight.future.complete(value);
+            return flight;
+        }
+    }
+}
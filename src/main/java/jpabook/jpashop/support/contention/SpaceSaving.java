@@ -0,0 +1,87 @@
+package jpabook.jpashop.support.contention;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters (키별 가중치 합 상위 K)
+ * - 키를 최대 capacity 개만 유지, 가득 차면 가장 작은 카운터의 키를 새 키로 바꾸고 그 값을 이어받는다. (error 로 기록)
+ * - count - error <= 실제 합 <= count
+ * - 실제 합이 total / capacity 보다 큰 키는 반드시 남아 있다.
+ * - 교체할 카운터는 선형 탐색 (capacity 가 작고, 가득 찬 뒤 새 키가 들어올 때만)
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity 는 1 이상이어야 합니다.");
+        }
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(long key, long weight) {
+        total += weight;
+
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter();
+            } else {
+                Map.Entry<Long, Counter> min = min();
+                counters.remove(min.getKey());
+                counter = min.getValue();
+                counter.error = counter.count;
+            }
+            counters.put(key, counter);
+        }
+        counter.count += weight;
+    }
+
+    /**
+     * count 큰 순서로 최대 n 개
+     */
+    public synchronized List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> entries.add(new Entry(key, counter.count, counter.error)));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    public synchronized long total() {
+        return total;
+    }
+
+    public synchronized void clear() {
+        counters.clear();
+        total = 0;
+    }
+
+    private Map.Entry<Long, Counter> min() {
+        Map.Entry<Long, Counter> min = null;
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            if (min == null || entry.getValue().count < min.getValue().count) {
+                min = entry;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @param count 추정 합 (실제 합 이상)
+     * @param error 키가 들어오기 전에 이어받은 값 (count - error 는 실제 합 이하)
+     */
+    public record Entry(long key, long count, long error) {
+    }
+
+    private static final class Counter {
+        private long count;
+        private long error;
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.support.contention;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /actuator/stockcontention?top=10
+ * - 종류(lock_wait(us), lock_timeout, conflict, retry)별 전체 합과 상위 상품 id
+ * - count 는 추정값, count - error 이상은 확실 (Space-Saving)
+ * DELETE /actuator/stockcontention 으로 초기화
+ */
+@Component
+@Endpoint(id = "stockcontention")
+@RequiredArgsConstructor
+public class StockContentionEndpoint {
+
+    private final StockContentionMonitor monitor;
+
+    @ReadOperation
+    public Map<String, Object> contention(@Nullable Integer top) {
+        int n = top != null ? top : 10;
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (StockContentionMonitor.Kind kind : StockContentionMonitor.Kind.values()) {
+            List<Map<String, Object>> items = monitor.top(kind, n).stream()
+                    .map(entry -> {
+                        Map<String, Object> item = new LinkedHashMap<>();
+                        item.put("itemId", entry.key());
+                        item.put("count", entry.count());
+                        item.put("error", entry.error());
+                        return item;
+                    })
+                    .toList();
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("total", monitor.total(kind));
+            summary.put("items", items);
+            result.put(kind.name().toLowerCase(), summary);
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        monitor.reset();
+    }
+}
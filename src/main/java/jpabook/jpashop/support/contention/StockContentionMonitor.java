@@ -0,0 +1,145 @@
+package jpabook.jpashop.support.contention;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.OptimisticLockException;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.support.retry.RetryListener;
+import org.hibernate.StaleObjectStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 재고 경합 기록
+ * - 메트릭: stock.lock.wait (outcome=acquired|timeout), stock.conflicts, stock.retries (name, attempt 태그)
+ * - 상품 id 별 값은 종류마다 Space-Saving 으로 상위 capacity 개만 유지 (상품 id 를 메트릭 태그로 쓰면 상품 수만큼 늘어난다)
+ */
+@Component
+public class StockContentionMonitor implements RetryListener {
+
+    public enum Kind {
+        LOCK_WAIT,    // 락 획득까지 걸린 시간 합 (us)
+        LOCK_TIMEOUT, // 락 타임아웃 횟수
+        CONFLICT,     // version 충돌 횟수
+        RETRY         // 충돌 후 재시도 횟수
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Kind, SpaceSaving> sketches = new EnumMap<>(Kind.class);
+    private final Timer lockAcquired;
+    private final Timer lockTimeout;
+
+    public StockContentionMonitor(MeterRegistry meterRegistry,
+                                  @Value("${jpashop.stock-contention.capacity:64}") int capacity) {
+        this.meterRegistry = meterRegistry;
+        for (Kind kind : Kind.values()) {
+            sketches.put(kind, new SpaceSaving(capacity));
+        }
+        this.lockAcquired = lockTimer("acquired");
+        this.lockTimeout = lockTimer("timeout");
+    }
+
+    private Timer lockTimer(String outcome) {
+        return Timer.builder("stock.lock.wait")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 비관적 락으로 상품을 조회하는 데 걸린 시간 (여러 상품을 한번에 잠그면 각 상품에 같은 시간)
+     */
+    public void lockAcquired(Collection<Long> itemIds, long nanos) {
+        lockAcquired.record(nanos, TimeUnit.NANOSECONDS);
+        add(Kind.LOCK_WAIT, itemIds, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void lockTimedOut(Collection<Long> itemIds, long nanos) {
+        lockTimeout.record(nanos, TimeUnit.NANOSECONDS);
+        add(Kind.LOCK_WAIT, itemIds, TimeUnit.NANOSECONDS.toMicros(nanos));
+        add(Kind.LOCK_TIMEOUT, itemIds, 1);
+    }
+
+    /**
+     * @OptimisticRetry 충돌 (상품 id 는 예외에서 꺼낸다. 못 꺼내면 메트릭에만 기록)
+     */
+    @Override
+    public void onConflict(String name, int attempt, Throwable conflict, boolean retrying) {
+        String attemptTag = String.valueOf(attempt);
+        meterRegistry.counter("stock.conflicts", "name", name, "attempt", attemptTag).increment();
+        if (retrying) {
+            meterRegistry.counter("stock.retries", "name", name, "attempt", attemptTag).increment();
+        }
+
+        Long itemId = itemId(conflict);
+        if (itemId != null) {
+            sketches.get(Kind.CONFLICT).add(itemId, 1);
+            if (retrying) {
+                sketches.get(Kind.RETRY).add(itemId, 1);
+            }
+        }
+    }
+
+    public List<SpaceSaving.Entry> top(Kind kind, int n) {
+        return sketches.get(kind).top(n);
+    }
+
+    public long total(Kind kind) {
+        return sketches.get(kind).total();
+    }
+
+    public void reset() {
+        sketches.values().forEach(SpaceSaving::clear);
+    }
+
+    private void add(Kind kind, Collection<Long> itemIds, long weight) {
+        SpaceSaving sketch = sketches.get(kind);
+        for (Long itemId : itemIds) {
+            if (itemId != null) {
+                sketch.add(itemId, weight);
+            }
+        }
+    }
+
+    /**
+     * 충돌 예외에서 상품 id
+     * - flush 시점 update 충돌: StaleObjectStateException (엔티티 이름, id)
+     * - LockModeType.OPTIMISTIC 커밋 시점 version 확인: OptimisticLockException (엔티티)
+     */
+    static Long itemId(Throwable conflict) {
+        for (Throwable e = conflict; e != null; e = e.getCause()) {
+            if (e instanceof ObjectOptimisticLockingFailureException o && isItem(o.getPersistentClassName())) {
+                return toLong(o.getIdentifier());
+            }
+            if (e instanceof StaleObjectStateException s && isItem(s.getEntityName())) {
+                return toLong(s.getIdentifier());
+            }
+            if (e instanceof OptimisticLockException o && o.getEntity() instanceof Item item) {
+                return item.getId();
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isItem(String entityName) {
+        if (entityName == null || !ClassUtils.isPresent(entityName, Item.class.getClassLoader())) {
+            return false;
+        }
+        return Item.class.isAssignableFrom(ClassUtils.resolveClassName(entityName, Item.class.getClassLoader()));
+    }
+
+    private static Long toLong(Object identifier) {
+        return identifier instanceof Long id ? id : null;
+    }
+}
@@ -0,0 +1,66 @@
+package jpabook.jpashop.support.contention;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.exception.LockAcquisitionException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 상품 비관적 락 조회 시간을 StockContentionMonitor 에 기록
+ * - ItemRepository.findOne (PESSIMISTIC_WRITE, 최대 10초 대기), findAllForUpdate
+ * - 락 타임아웃이면 타임아웃으로, 그 외 예외는 기록하지 않는다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StockLockAspect {
+
+    private final StockContentionMonitor monitor;
+
+    @Around("execution(* jpabook.jpashop.repository.ItemRepository.findOne(Long)) && args(itemId)")
+    public Object findOne(ProceedingJoinPoint joinPoint, Long itemId) throws Throwable {
+        return measure(joinPoint, Collections.singletonList(itemId));
+    }
+
+    @Around("execution(* jpabook.jpashop.repository.ItemRepository.findAllForUpdate(java.util.Collection)) && args(itemIds)")
+    public Object findAllForUpdate(ProceedingJoinPoint joinPoint, Collection<Long> itemIds) throws Throwable {
+        return measure(joinPoint, itemIds);
+    }
+
+    private Object measure(ProceedingJoinPoint joinPoint, Collection<Long> itemIds) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            monitor.lockAcquired(itemIds, System.nanoTime() - start);
+            return result;
+        } catch (Throwable e) {
+            if (isLockTimeout(e)) {
+                monitor.lockTimedOut(itemIds, System.nanoTime() - start);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isLockTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PessimisticLockingFailureException
+                    || cause instanceof LockTimeoutException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof LockAcquisitionException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
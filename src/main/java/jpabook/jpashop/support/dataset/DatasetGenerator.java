@@ -0,0 +1,253 @@
+package jpabook.jpashop.support.dataset;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * 대량 데이터 생성기
+ * - 영속성 컨텍스트 없이 StatelessSession 으로 insert (JDBC 배치 크기는 hibernate.jdbc.batch_size)
+ * - 회원, 상품, 카테고리를 먼저 만들고 주문은 chunkSize 단위로 나눠 여러 스레드에서 병렬 생성
+ * - chunk 마다 seed 를 고정해서 스레드 수, 실행 순서와 관계없이 같은 값이 만들어진다.
+ */
+@Slf4j
+@Component
+public class DatasetGenerator {
+
+    private static final LocalDateTime BASE_ORDER_DATE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "세종"};
+
+    private final SessionFactory sessionFactory;
+
+    public DatasetGenerator(EntityManagerFactory emf) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+    }
+
+    public Result generate(DatasetProperties properties) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+
+        long[] memberIds = createMembers(properties);
+        Item[] items = createItems(properties, random.split());
+        createCategories(properties, items, random.split());
+        long orderItems = createOrders(properties, memberIds, items, random.nextLong());
+
+        Result result = new Result(memberIds.length, items.length, properties.getCategories(), properties.getOrders(), orderItems,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("dataset generated. {}", result);
+        return result;
+    }
+
+    private long[] createMembers(DatasetProperties properties) {
+        long[] memberIds = new long[properties.getMembers()];
+        for (int from = 0; from < memberIds.length; from += properties.getChunkSize()) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(memberIds.length, from + properties.getChunkSize());
+            inTransaction(session -> {
+                for (int i = chunkFrom; i < chunkTo; i++) {
+                    Member member = new Member();
+                    member.setName(properties.getNamePrefix() + i);
+                    member.setAddress(address(i));
+                    session.insert(member);
+                    memberIds[i] = member.getId();
+                }
+            });
+        }
+        return memberIds;
+    }
+
+    private Item[] createItems(DatasetProperties properties, SplittableRandom random) {
+        List<Item> items = new ArrayList<>();
+        inTransaction(session -> {
+            for (int i = 0; i < properties.getBooks(); i++) {
+                Book book = new Book();
+                book.setAuthor("author" + random.nextInt(1000));
+                book.setIsbn(String.format("%013d", random.nextLong(10_000_000_000_000L)));
+                items.add(insertItem(session, book, "book" + i, random));
+            }
+            for (int i = 0; i < properties.getAlbums(); i++) {
+                items.add(insertItem(session, new Album(), "album" + i, random));
+            }
+            for (int i = 0; i < properties.getMovies(); i++) {
+                items.add(insertItem(session, new Movie(), "movie" + i, random));
+            }
+        });
+        if (items.isEmpty() && properties.getOrders() > 0) {
+            throw new IllegalArgumentException("주문을 만들려면 상품이 하나 이상 필요합니다.");
+        }
+        return items.toArray(Item[]::new);
+    }
+
+    private Item insertItem(StatelessSession session, Item item, String name, SplittableRandom random) {
+        item.setName(name);
+        item.setPrice(1_000 * (1 + random.nextInt(50)));
+        item.setStockQuantity(Integer.MAX_VALUE / 2);
+        session.insert(item);
+        return item;
+    }
+
+    /**
+     * 앞의 카테고리 중 하나를 부모로 (첫 번째는 루트), 카테고리마다 상품 itemsPerCategory 개 연결
+     */
+    private void createCategories(DatasetProperties properties, Item[] items, SplittableRandom random) {
+        List<Category> categories = new ArrayList<>();
+        inTransaction(session -> {
+            for (int i = 0; i < properties.getCategories(); i++) {
+                Category category = new Category();
+                category.setName("category" + i);
+                if (i > 0 && random.nextInt(4) != 0) {
+                    category.setParent(categories.get(random.nextInt(i)));
+                }
+                session.insert(category);
+                categories.add(category);
+            }
+        });
+        if (items.length == 0) {
+            return;
+        }
+
+        // StatelessSession 은 컬렉션을 저장하지 않으므로 연결 테이블은 직접 insert
+        // (카테고리 insert 가 배치로 묶여 있으므로 커밋 뒤에 별도 트랜잭션으로)
+        inTransaction(session -> session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("insert into category_item (category_id, item_id) values (?, ?)")) {
+                for (Category category : categories) {
+                    int[] indexes = random.ints(0, items.length).distinct()
+                            .limit(Math.min(properties.getItemsPerCategory(), items.length))
+                            .toArray();
+                    for (int index : indexes) {
+                        ps.setLong(1, category.getId());
+                        ps.setLong(2, items[index].getId());
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        }));
+    }
+
+    private long createOrders(DatasetProperties properties, long[] memberIds, Item[] items, long orderSeed) {
+        int orders = properties.getOrders();
+        int chunkSize = properties.getChunkSize();
+        if (orders == 0) {
+            return 0;
+        }
+        if (memberIds.length == 0) {
+            throw new IllegalArgumentException("주문을 만들려면 회원이 한 명 이상 필요합니다.");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "dataset-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int from = 0; from < orders; from += chunkSize) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(orders, from + chunkSize);
+                SplittableRandom random = new SplittableRandom(orderSeed + chunkFrom);
+                futures.add(executor.submit(() -> createOrderChunk(properties, memberIds, items, chunkFrom, chunkTo, random)));
+            }
+
+            long orderItems = 0;
+            for (Future<Long> future : futures) {
+                orderItems += future.get();
+            }
+            return orderItems;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("데이터 생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("데이터 생성에 실패했습니다.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 테이블 별로 모아서 insert (문장이 바뀌면 JDBC 배치가 끊긴다)
+     */
+    private long createOrderChunk(DatasetProperties properties, long[] memberIds, Item[] items, int from, int to, SplittableRandom random) {
+        List<Order> orders = new ArrayList<>(to - from);
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            int memberIndex = random.nextInt(memberIds.length);
+            Member member = new Member();
+            member.setId(memberIds[memberIndex]);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(address(memberIndex));
+            delivery.setStatus(DeliveryStatus.READY);
+
+            OrderItem[] lines = new OrderItem[itemsPerOrder(properties, random)];
+            for (int j = 0; j < lines.length; j++) {
+                Item item = items[random.nextInt(items.length)];
+                lines[j] = OrderItem.createOrderItem(item, item.getPrice(), 1 + random.nextInt(3));
+                orderItems.add(lines[j]);
+            }
+
+            Order order = Order.createOrder(member, delivery, lines);
+            order.setOrderDate(BASE_ORDER_DATE.plusSeconds(i * 30L));
+            if (random.nextInt(10) == 0) {
+                order.setStatus(OrderStatus.CANCEL);
+            }
+            orders.add(order);
+        }
+
+        inTransaction(session -> {
+            orders.forEach(order -> session.insert(order.getDelivery()));
+            orders.forEach(session::insert);
+            orderItems.forEach(session::insert);
+        });
+        return orderItems.size();
+    }
+
+    private int itemsPerOrder(DatasetProperties properties, SplittableRandom random) {
+        int min = properties.getMinItemsPerOrder();
+        int max = Math.max(min, properties.getMaxItemsPerOrder());
+        if (properties.getItemsPerOrder() == DatasetProperties.ItemsPerOrder.GEOMETRIC) {
+            int count = min;
+            while (count < max && random.nextBoolean()) {
+                count++;
+            }
+            return count;
+        }
+        return min + random.nextInt(max - min + 1);
+    }
+
+    private Address address(int index) {
+        return new Address(CITIES[index % CITIES.length], "street" + index, String.format("%05d", index % 100_000));
+    }
+
+    private void inTransaction(Consumer<StatelessSession> work) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                work.accept(session);
+                tx.commit();
+            } catch (RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    public record Result(int members, int items, int categories, int orders, long orderItems, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.support.dataset;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대량 데이터 생성 설정 (jpashop.dataset)
+ * - 같은 seed, 같은 설정이면 스레드 수와 관계없이 같은 값이 만들어진다. (id 는 다를 수 있음)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "jpashop.dataset")
+public class DatasetProperties {
+
+    /**
+     * true 면 InitDb 가 dbInit1 대신 생성기로 데이터를 만든다.
+     */
+    private boolean enabled;
+
+    private long seed = 20240101L;
+
+    /**
+     * 회원 이름 접두사 (여러 번 생성할 때 구분용)
+     */
+    private String namePrefix = "member";
+
+    private int members = 1_000;
+    private int books = 100;
+    private int albums = 50;
+    private int movies = 50;
+    private int categories = 20;
+    private int itemsPerCategory = 10;
+    private int orders = 10_000;
+
+    /**
+     * 주문당 상품 수 [min, max]
+     */
+    private int minItemsPerOrder = 1;
+    private int maxItemsPerOrder = 10;
+    private ItemsPerOrder itemsPerOrder = ItemsPerOrder.UNIFORM;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 작업 단위(트랜잭션 하나)당 주문 수, 단위마다 고정된 seed 를 쓴다.
+     * - 트랜잭션이 너무 크면 커밋 비용이 커진다.
+     */
+    private int chunkSize = 2_000;
+
+    public enum ItemsPerOrder {
+        /**
+         * min ~ max 균등 분포
+         */
+        UNIFORM,
+        /**
+         * min 에 몰리고 max 쪽으로 갈수록 절반씩 줄어드는 분포 (장바구니 크기 흉내)
+         */
+        GEOMETRIC
+    }
+}
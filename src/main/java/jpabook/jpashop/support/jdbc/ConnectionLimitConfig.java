@@ -0,0 +1,40 @@
+package jpabook.jpashop.support.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * jpashop.jdbc.connection-limit.enabled=true 면 DataSource 를 ConnectionLimitingDataSource 로 감싼다. (virtual 프로필)
+ * - permits 를 지정하지 않으면 Hikari maximumPoolSize
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.jdbc.connection-limit", name = "enabled", havingValue = "true")
+public class ConnectionLimitConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+
+                int defaultPermits = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                int permits = environment.getProperty("jpashop.jdbc.connection-limit.permits", Integer.class, defaultPermits);
+                long acquireTimeout = environment.getProperty("jpashop.jdbc.connection-limit.acquire-timeout-ms", Long.class, 30_000L);
+
+                log.info("connection limit enabled. dataSource={}, permits={}, acquireTimeout={}ms", beanName, permits, acquireTimeout);
+                return new ConnectionLimitingDataSource(dataSource, permits, acquireTimeout);
+            }
+        };
+    }
+}
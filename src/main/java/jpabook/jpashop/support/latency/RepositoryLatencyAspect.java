@@ -0,0 +1,30 @@
+package jpabook.jpashop.support.latency;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 public 메서드 실행 시간 측정 (jpabook.jpashop.repository 하위 @Repository)
+ * - 같은 리포지토리 안에서 this 로 부르는 메서드는 따로 측정되지 않는다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryLatencyAspect {
+
+    private final RepositoryLatencyRecorder recorder;
+
+    @Around("within(jpabook.jpashop.repository..*) && @within(org.springframework.stereotype.Repository) && execution(public * *(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            recorder.record(joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                    joinPoint.getSignature().getName(), System.nanoTime() - start);
+        }
+    }
+}
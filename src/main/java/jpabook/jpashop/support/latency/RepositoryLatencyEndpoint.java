@@ -0,0 +1,49 @@
+package jpabook.jpashop.support.latency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /actuator/repositorylatency
+ * - 리포지토리 메서드별 호출 수, 평균, 최대, p50/p95/p99 (ms, 최근 구간 기준)
+ * - 리포지토리.메서드 이름 순
+ */
+@Component
+@Endpoint(id = "repositorylatency")
+@RequiredArgsConstructor
+public class RepositoryLatencyEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> latencies() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(RepositoryLatencyRecorder.METRIC).timers()) {
+            String name = timer.getId().getTag("repository") + "." + timer.getId().getTag("method");
+            result.put(name, summary(timer.takeSnapshot()));
+        }
+        return result;
+    }
+
+    private Map<String, Object> summary(HistogramSnapshot snapshot) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.count());
+        summary.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+        summary.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.support.latency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.support.query.QueryStats;
+import jpabook.jpashop.support.query.QueryStatsHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리포지토리 메서드별 지연 시간 기록
+ * - 메트릭: repository.latency (repository, method 태그), p50/p95/p99 는 메모리의 HdrHistogram 으로 계산
+ * - slowThresholdMs 이상 걸렸거나 sampleRate 확률로 뽑힌 호출만 jpashop.repository.SLOW 로거에 남긴다. (logback-spring.xml 에서 비동기)
+ */
+@Slf4j(topic = "jpashop.repository.SLOW")
+@Component
+public class RepositoryLatencyRecorder {
+
+    public static final String METRIC = "repository.latency";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public RepositoryLatencyRecorder(MeterRegistry meterRegistry,
+                                     @Value("${jpashop.repository-latency.slow-threshold-ms:100}") long slowThresholdMs,
+                                     @Value("${jpashop.repository-latency.sample-rate:0}") double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.sampleRate = sampleRate;
+    }
+
+    public void record(String repository, String method, long nanos) {
+        timers.computeIfAbsent(repository + "." + method, key -> Timer.builder(METRIC)
+                        .tags("repository", repository, "method", method)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        boolean slow = nanos >= slowThresholdNanos;
+        if (slow || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            QueryStats stats = QueryStatsHolder.current();
+            log.info("{}{}.{} {}us{}", slow ? "slow " : "sampled ", repository, method,
+                    TimeUnit.NANOSECONDS.toMicros(nanos), stats != null ? ", request " + stats : "");
+        }
+    }
+}
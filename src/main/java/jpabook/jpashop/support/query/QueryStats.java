@@ -0,0 +1,78 @@
+package jpabook.jpashop.support.query;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 요청(또는 구간) 하나에서 실행된 SQL 통계
+ * - statementCount: Hibernate 가 준비한 SQL 수 (StatementInspector)
+ * - jdbcNanos: JDBC 실행 시간 합계 (SessionEventListener)
+ * - entityLoadCount: 조회되어 영속성 컨텍스트에 올라온 엔티티 수 (PostLoad)
+ * - 같은 SQL 이 반복되면 N+1 로 의심한다. (지연 로딩 SQL 은 파라미터만 다르고 문장은 같다)
+ * - 파라미터가 2개 이상인 IN 절 SQL 은 묶음 조회이므로 반복되어도 N+1 로 보지 않는다. (OrderItemBatchLoader 의 고정 크기 chunk)
+ */
+public class QueryStats {
+
+    public static final String ATTRIBUTE = QueryStats.class.getName();
+
+    private static final Pattern BATCH_IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)", Pattern.CASE_INSENSITIVE);
+
+    private int statementCount;
+    private long jdbcNanos;
+    private int entityLoadCount;
+    private final Map<String, Integer> statements = new HashMap<>();
+
+    void statementPrepared(String sql) {
+        statementCount++;
+        statements.merge(sql, 1, Integer::sum);
+    }
+
+    void executed(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    void entityLoaded() {
+        entityLoadCount++;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public long getJdbcMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(jdbcNanos);
+    }
+
+    public int getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    /**
+     * threshold 번 이상 반복된 SQL, 많이 반복된 순 (묶음 IN 조회 제외)
+     */
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        statements.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .filter(e -> !isBatchStatement(e.getKey()))
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    static boolean isBatchStatement(String sql) {
+        return BATCH_IN_LIST.matcher(sql).find();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStats{statements=" + statementCount + ", jdbcMillis=" + getJdbcMillis() + ", entityLoads=" + entityLoadCount + "}";
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.support.query;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청별 SQL 통계
+ * - 응답 헤더: X-Query-Count, X-Query-Time(ms), X-Query-Entities
+ * - 메트릭: http.server.queries, http.server.jdbc, http.server.n-plus-one (uri, method 태그)
+ * - 같은 SQL 이 nPlusOneThreshold 번 이상 반복되면 N+1 의심 로그 (묶음 IN 조회는 제외, QueryStats)
+ */
+@Slf4j
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry, int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryStats stats = QueryStatsHolder.begin();
+        QueryStatsResponseWrapper wrapper = new QueryStatsResponseWrapper(response, stats);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            QueryStatsHolder.end();
+            wrapper.writeHeaders();
+            request.setAttribute(QueryStats.ATTRIBUTE, stats);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.queries")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+        Timer.builder("http.server.jdbc")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = stats.repeatedStatements(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("http.server.n-plus-one")
+                    .tags("uri", uri, "method", method)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("N+1 의심. {} {}, {}, repeated={}", method, uri, stats, repeated.values());
+            if (log.isDebugEnabled()) {
+                repeated.forEach((sql, count) -> log.debug("repeated {} times: {}", count, sql));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.support.query;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드의 QueryStats 보관
+ * - begin ~ end 사이에 같은 스레드에서 실행된 SQL 만 집계된다.
+ * - 집계 중이 아니면 current() 는 null
+ */
+public final class QueryStatsHolder {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryStatsHolder() {
+    }
+
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * action 실행 동안의 통계, 바깥 집계가 있었다면 끝난 뒤 복원한다.
+     */
+    public static QueryStats measure(Runnable action) {
+        return measure(() -> {
+            action.run();
+            return null;
+        }).stats();
+    }
+
+    public static <T> Measured<T> measure(Supplier<T> action) {
+        QueryStats outer = CURRENT.get();
+        QueryStats stats = begin();
+        try {
+            return new Measured<>(action.get(), stats);
+        } finally {
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                end();
+            }
+        }
+    }
+
+    public record Measured<T>(T result, QueryStats stats) {
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.support.query;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 SQL 을 준비할 때마다 현재 스레드의 QueryStats 에 기록
+ * - SQL 은 그대로 돌려준다.
+ */
+public class QueryStatsInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats != null) {
+            stats.statementPrepared(sql);
+        }
+        return sql;
+    }
+}
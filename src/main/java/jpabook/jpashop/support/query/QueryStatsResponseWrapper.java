@@ -0,0 +1,155 @@
+package jpabook.jpashop.support.query;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * 응답 본문의 첫 바이트가 나가기 직전에 통계 헤더를 붙인다.
+ * - 헤더는 커밋 전에만 쓸 수 있으므로, 직렬화 중 지연 로딩이 버퍼를 넘겨 먼저 흘러나가면
+ *   그 이후 SQL 은 헤더에 빠진다. (전체 값은 요청 속성과 메트릭에 남는다)
+ */
+class QueryStatsResponseWrapper extends HttpServletResponseWrapper {
+
+    static final String COUNT_HEADER = "X-Query-Count";
+    static final String TIME_HEADER = "X-Query-Time";
+    static final String ENTITY_HEADER = "X-Query-Entities";
+
+    private final QueryStats stats;
+    private boolean headersWritten;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    QueryStatsResponseWrapper(HttpServletResponse response, QueryStats stats) {
+        super(response);
+        this.stats = stats;
+    }
+
+    void writeHeaders() {
+        if (headersWritten) {
+            return;
+        }
+        headersWritten = true;
+        if (isCommitted()) {
+            return;
+        }
+        setHeader(COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+        setHeader(TIME_HEADER, String.valueOf(stats.getJdbcMillis()));
+        setHeader(ENTITY_HEADER, String.valueOf(stats.getEntityLoadCount()));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new HeaderWritingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new HeaderWritingWriter(super.getWriter()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        writeHeaders();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        writeHeaders();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        writeHeaders();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        writeHeaders();
+        super.sendRedirect(location);
+    }
+
+    private class HeaderWritingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        HeaderWritingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writeHeaders();
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeHeaders();
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeHeaders();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeHeaders();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    private class HeaderWritingWriter extends Writer {
+
+        private final Writer delegate;
+
+        HeaderWritingWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            writeHeaders();
+            delegate.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeHeaders();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeHeaders();
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.support.query;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * JDBC 실행 시간 집계
+ * - hibernate.session.events.auto 로 세션마다 새로 생성된다.
+ * - 한 세션 안에서 JDBC 실행은 겹치지 않으므로 시작 시각은 필드 하나로 충분
+ */
+public class QueryStatsSessionListener implements SessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long startNanos;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats != null) {
+            stats.executed(System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.support.readonly;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 엔티티를 조회해서 DTO 로 바꾸는 조회 API 에 읽기 전용 세션 적용
+ * - OSIV 인터셉터(order 0) 가 EntityManager 를 연 뒤에 실행되도록 가장 낮은 우선순위
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ReadOnlySessionConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadOnlySessionInterceptor(emf))
+                .addPathPatterns("/api/*/orders", "/api/*/simple-orders", "/api/*/members")
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,58 @@
+package jpabook.jpashop.support.readonly;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * GET 조회 API 의 OSIV 세션을 기본 읽기 전용으로
+ * - 쿼리 힌트는 쿼리가 직접 조회한 엔티티에만 적용되고, 지연 로딩으로 올라오는 연관 엔티티는 세션 기본값을 따른다.
+ * - 읽기 전용 엔티티는 스냅샷을 만들지 않는다. (엔티티 하나당 필드 배열 하나, 변경 감지도 하지 않음)
+ * - 세션 단위 설정이므로 이 요청 안에서 수정하는 쓰기 트랜잭션이 있으면 안 된다.
+ */
+public class ReadOnlySessionInterceptor implements HandlerInterceptor {
+
+    private static final String APPLIED = ReadOnlySessionInterceptor.class.getName() + ".APPLIED";
+
+    private final EntityManagerFactory emf;
+
+    public ReadOnlySessionInterceptor(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        Session session = boundSession();
+        if (session != null && !session.isDefaultReadOnly()) {
+            session.setDefaultReadOnly(true);
+            request.setAttribute(APPLIED, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(APPLIED) == null) {
+            return;
+        }
+        Session session = boundSession();
+        if (session != null && session.isOpen()) {
+            session.setDefaultReadOnly(false);
+        }
+    }
+
+    /**
+     * OSIV 인터셉터가 열어 둔 EntityManager, 없으면 null
+     */
+    private Session boundSession() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        return holder != null ? holder.getEntityManager().unwrap(Session.class) : null;
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.support.retry;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 충돌 시 새 트랜잭션으로 재시도
+ * - @Transactional 보다 바깥에서 실행되므로 시도마다 트랜잭션과 영속성 컨텍스트가 새로 열린다.
+ * - 지수 백오프 + jitter 로 대기하고, timeoutMillis 를 넘기면 마지막 예외를 그대로 던진다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OptimisticRetry {
+
+    int maxAttempts() default 10;
+
+    long initialBackoffMillis() default 5;
+
+    long maxBackoffMillis() default 200;
+
+    long timeoutMillis() default 3000;
+
+    Class<? extends Throwable>[] retryFor() default OptimisticLockingFailureException.class;
+}
@@ -0,0 +1,38 @@
+package jpabook.jpashop.support.retry;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @OptimisticRetry 처리
+ * - 트랜잭션 advice 보다 먼저(바깥에서) 실행되도록 가장 높은 우선순위
+ * - 이미 바깥 트랜잭션에 참여 중이면 재시도해도 같은 영속성 컨텍스트를 쓰므로 재시도하지 않는다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class OptimisticRetryAspect {
+
+    private final RetryExecutor retryExecutor;
+
+    @Around("@annotation(jpabook.jpashop.support.retry.OptimisticRetry)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        OptimisticRetry optimisticRetry = signature.getMethod().getAnnotation(OptimisticRetry.class);
+
+        String name = signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+        return retryExecutor.execute(name, optimisticRetry, joinPoint::proceed);
+    }
+}
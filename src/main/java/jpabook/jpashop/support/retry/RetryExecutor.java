@@ -0,0 +1,86 @@
+package jpabook.jpashop.support.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재시도 실행기
+ * - 시도, 충돌, 포기 횟수를 이름(name) 별 카운터로 기록
+ *   (retry.attempts, retry.conflicts, retry.give-ups)
+ * - 충돌마다 RetryListener 에 알림
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+    private final List<RetryListener> listeners;
+
+    public Object execute(String name, OptimisticRetry policy, RetryCallback callback) throws Throwable {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.timeoutMillis());
+
+        for (int attempt = 1; ; attempt++) {
+            counter("retry.attempts", name).increment();
+            try {
+                return callback.call();
+            } catch (Throwable e) {
+                if (!isRetryable(policy, e)) {
+                    throw e;
+                }
+                counter("retry.conflicts", name).increment();
+
+                long backoffNanos = backoffNanos(policy, attempt);
+                if (attempt >= policy.maxAttempts() || System.nanoTime() + backoffNanos > deadline) {
+                    notifyConflict(name, attempt, e, false);
+                    counter("retry.give-ups", name).increment();
+                    log.warn("retry give up. name={}, attempts={}", name, attempt);
+                    throw e;
+                }
+
+                notifyConflict(name, attempt, e, true);
+                log.debug("retry. name={}, attempt={}, backoff={}us", name, attempt, backoffNanos / 1000);
+                TimeUnit.NANOSECONDS.sleep(backoffNanos);
+            }
+        }
+    }
+
+    /**
+     * 지수 백오프 + full jitter: [0, min(max, initial * 2^(attempt - 1))) 사이 임의 값
+     */
+    private long backoffNanos(OptimisticRetry policy, int attempt) {
+        long ceiling = Math.min(policy.maxBackoffMillis(), policy.initialBackoffMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(Math.max(1, ceiling)));
+    }
+
+    private boolean isRetryable(OptimisticRetry policy, Throwable e) {
+        for (Class<? extends Throwable> type : policy.retryFor()) {
+            if (type.isInstance(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notifyConflict(String name, int attempt, Throwable conflict, boolean retrying) {
+        for (RetryListener listener : listeners) {
+            listener.onConflict(name, attempt, conflict, retrying);
+        }
+    }
+
+    private Counter counter(String metric, String name) {
+        return meterRegistry.counter(metric, "name", name);
+    }
+
+    @FunctionalInterface
+    public interface RetryCallback {
+        Object call() throws Throwable;
+    }
+}
@@ -0,0 +1,13 @@
+package jpabook.jpashop.support.retry;
+
+/**
+ * RetryExecutor 충돌 알림 (빈으로 등록하면 모든 재시도에 적용)
+ */
+public interface RetryListener {
+
+    /**
+     * @param attempt 실패한 시도 번호 (1 부터)
+     * @param retrying 다시 시도하면 true, 포기하면 false
+     */
+    void onConflict(String name, int attempt, Throwable conflict, boolean retrying);
+}
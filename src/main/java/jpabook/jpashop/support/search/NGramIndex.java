@@ -0,0 +1,219 @@
+package jpabook.jpashop.support.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 부분 문자열 검색용 n-gram 역색인 (id -> 문자열)
+ * - 문자열의 연속된 2글자, 3글자마다 id 목록(정렬된 long 배열)을 유지한다.
+ * - 3글자 이상 검색어는 trigram 목록들을 가장 짧은 것부터 교집합한 후보만 실제 문자열로 확인한다.
+ * - 2글자 검색어는 bigram 목록이 곧 결과 (한글 이름은 2글자 검색이 흔하다)
+ * - 1글자 검색어는 걸러낼 수 없으므로 전체 문자열을 확인한다.
+ * - 대소문자 구분 없음
+ */
+public class NGramIndex {
+
+    private static final int MIN_N = 2;
+    private static final int MAX_N = 3;
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, String> values = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 추가, 이미 있는 id 면 새 문자열로 교체
+     */
+    public void put(long id, String value) {
+        String normalized = normalize(value);
+        lock.writeLock().lock();
+        try {
+            String previous = values.put(id, normalized);
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    removePosting(gram, id);
+                }
+            }
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = values.remove(id);
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    removePosting(gram, id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            values.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removePosting(String gram, long id) {
+        Postings list = postings.get(gram);
+        if (list != null && list.remove(id) && list.size == 0) {
+            postings.remove(gram);
+        }
+    }
+
+    /**
+     * query 를 포함하는 문자열의 id (오름차순)
+     */
+    public long[] search(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < MIN_N) {
+                return scan(normalized);
+            }
+            if (normalized.length() == MIN_N) {
+                Postings list = postings.get(normalized);
+                return list == null ? EMPTY : Arrays.copyOf(list.ids, list.size);
+            }
+
+            List<Postings> lists = new ArrayList<>();
+            for (String gram : grams(normalized, MAX_N)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return EMPTY;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Postings smallest = lists.get(0);
+            long[] result = new long[smallest.size];
+            int count = 0;
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                long id = smallest.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(id)) {
+                        continue candidates;
+                    }
+                }
+                // trigram 이 모두 있어도 순서가 다를 수 있으므로 실제 문자열로 확인
+                if (values.get(id).contains(normalized)) {
+                    result[count++] = id;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] scan(String normalized) {
+        long[] result = new long[16];
+        int count = 0;
+        for (Map.Entry<Long, String> entry : values.entrySet()) {
+            if (entry.getValue().contains(normalized)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = entry.getKey();
+            }
+        }
+        long[] ids = Arrays.copyOf(result, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 색인할 bigram, trigram
+     */
+    static Set<String> grams(String normalized) {
+        Set<String> grams = grams(normalized, MIN_N);
+        grams.addAll(grams(normalized, MAX_N));
+        return grams;
+    }
+
+    private static Set<String> grams(String normalized, int n) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + n <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + n));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 정렬된 id 목록, id 는 대부분 증가하는 순서로 들어오므로 끝에 붙이는 경우가 많다.
+     */
+    private static class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.support.query.QueryBudget;
+import jpabook.jpashop.support.query.QueryStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 다른 테스트가 커밋한 주문(@Rollback(false))이 섞이지 않도록 api 테스트 전용 DB 사용 (setUp 주문 + InitDb 주문만 조회된다)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:api")
+@AutoConfigureMockMvc
+@Transactional
+class OrderApiControllerQueryBudgetTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+
+        for (int i = 0; i < 5; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            em.persist(Order.createOrder(member, delivery, OrderItem.createOrderItem(book, book.getPrice(), 1)));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 응답헤더에_SQL_통계() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v6/orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Query-Count"))
+                .andExpect(header().exists("X-Query-Time"))
+                .andReturn();
+
+        QueryStats stats = QueryBudget.stats(result);
+        assertEquals(String.valueOf(stats.getStatementCount()), result.getResponse().getHeader("X-Query-Count"));
+    }
+
+    @Test
+    public void 플랫_조회는_SQL_한번() throws Exception {
+        mockMvc.perform(get("/api/v6/orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(1));
+    }
+
+    @Test
+    public void 주문상품_묶음_조회는_N플러스1_아님() throws Exception {
+        mockMvc.perform(get("/api/v4/orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(2))
+                .andExpect(QueryBudget.noNPlusOne());
+    }
+
+    @Test
+    public void 컬렉션_IN_조회는_N플러스1_아님() throws Exception {
+        mockMvc.perform(get("/api/v5/orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(2))
+                .andExpect(QueryBudget.noNPlusOne());
+    }
+
+    @Test
+    public void 엔티티_지연로딩은_N플러스1() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v2/orders"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThrows(AssertionError.class, () -> QueryBudget.noNPlusOne().match(result));
+        assertTrue(QueryBudget.stats(result).getEntityLoadCount() > 0);
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// OrderApiControllerQueryBudgetTest 와 같은 전용 DB 컨텍스트
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:api")
+@AutoConfigureMockMvc
+@Transactional
+class OrderApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 조회모델_limit_범위_밖이면_400() throws Exception {
+        mockMvc.perform(get("/api/v7/orders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v7/orders").param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v7/orders").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v7/orders").param("limit", "1"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 페이징_limit_범위_밖이면_400() throws Exception {
+        for (String url : new String[]{"/api/v3/orders", "/api/v3.1/orders", "/api/v3.2/orders"}) {
+            mockMvc.perform(get(url).param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(url).param("limit", "1001"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(url).param("limit", "1"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/v3.1/orders").param("offset", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,267 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.support.query.QueryBudget;
+import org.hibernate.SessionFactory;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class OrderRepositoryTest {
+
+    @Autowired OrderRepository orderRepository;
+    @Autowired EntityManager em;
+
+    @Test
+    @DisplayName("키셋 페이징 - 커서를 따라가면 전체 주문을 순서대로 한번씩 조회")
+    public void seekPaging() throws Exception {
+        // given
+        List<Long> orderIds = createOrders(25);
+        em.flush();
+        em.clear();
+
+        // when
+        List<Long> result = new ArrayList<>();
+        OrderCursor cursor = null;
+        while (true) {
+            List<Order> page = orderRepository.findAllWithMemberDelivery(cursor, 10);
+            page.forEach(o -> result.add(o.getId()));
+            if (page.size() < 10) {
+                break;
+            }
+            cursor = OrderCursor.decode(OrderCursor.from(page.get(page.size() - 1)).encode());
+        }
+
+        // then
+        assertEquals(orderIds, result.subList(result.size() - orderIds.size(), result.size()));
+        assertNull(OrderCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("목록 조회 - 읽기 전용으로 조회되어 변경 감지 대상이 아님")
+    public void readOnlyList() throws Exception {
+        // given
+        createOrders(3);
+        em.flush();
+        em.clear();
+
+        // when
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(0, 3);
+        Session session = em.unwrap(Session.class);
+        for (Order order : orders) {
+            assertTrue(session.isReadOnly(order));
+            order.setOrderDate(order.getOrderDate().plusYears(100));
+        }
+        em.flush();
+        em.clear();
+
+        // then
+        assertEquals(3, orders.size());
+        for (Order order : orders) {
+            assertEquals(order.getOrderDate().minusYears(100), orderRepository.findOne(order.getId()).getOrderDate());
+        }
+    }
+
+    @Test
+    @DisplayName("주문 검색 - 조건 조합별 named query, 반복 검색해도 쿼리 계획 캐시 miss 가 늘지 않음")
+    public void search() throws Exception {
+        // given
+        createOrders(2);
+        Order canceled = orderRepository.findOne(createOrders(1).get(0));
+        canceled.getMember().setName("취소_회원%");
+        canceled.setStatus(OrderStatus.CANCEL);
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        // when
+        OrderSearch byName = new OrderSearch();
+        byName.setMemberName("소_회원%");
+        OrderSearch byStatusAndName = new OrderSearch();
+        byStatusAndName.setOrderStatus(OrderStatus.ORDER);
+        byStatusAndName.setMemberName("소_회원%");
+        OrderSearch byStatus = new OrderSearch();
+        byStatus.setOrderStatus(OrderStatus.CANCEL);
+
+        List<OrderSearch> searches = List.of(new OrderSearch(), byName, byStatus, byStatusAndName);
+        searches.forEach(orderRepository::search);
+        long planCacheMiss = statistics.getQueryPlanCacheMissCount();
+        long planCacheHit = statistics.getQueryPlanCacheHitCount();
+        for (int i = 0; i < 10; i++) {
+            orderRepository.search(new OrderSearch());
+            orderRepository.search(byName);
+            orderRepository.search(byStatus);
+            orderRepository.search(byStatusAndName);
+        }
+
+        // then
+        assertEquals(List.of(canceled.getId()), orderRepository.search(byName).stream().map(Order::getId).toList());
+        assertTrue(orderRepository.search(byStatus).stream().anyMatch(o -> o.getId().equals(canceled.getId())));
+        assertTrue(orderRepository.search(byStatusAndName).isEmpty());
+        assertEquals(planCacheMiss, statistics.getQueryPlanCacheMissCount());
+        assertTrue(statistics.getQueryPlanCacheHitCount() >= planCacheHit + 40);
+    }
+
+    @Test
+    @DisplayName("회원 id 목록 검색 - IN 절이 여러 번으로 나뉘어도 전체에서 주문 id 순으로 limit 건")
+    public void findAllByMemberIdsAcrossChunks() throws Exception {
+        // given
+        Order first = orderRepository.findOne(createOrders(1).get(0));
+        Order second = orderRepository.findOne(createOrders(1).get(0));
+        em.flush();
+        em.clear();
+
+        long[] memberIds = new long[1002];
+        memberIds[0] = second.getMember().getId();
+        for (int i = 1; i <= 1000; i++) {
+            memberIds[i] = -i;
+        }
+        memberIds[1001] = first.getMember().getId();
+
+        // when
+        List<Order> limited = orderRepository.findAllByMemberIds(memberIds, null, 1);
+        List<Order> all = orderRepository.findAllByMemberIds(memberIds, null, 10);
+
+        // then
+        assertEquals(List.of(first.getId()), limited.stream().map(Order::getId).toList());
+        assertEquals(List.of(first.getId(), second.getId()), all.stream().map(Order::getId).toList());
+    }
+
+    @Test
+    @DisplayName("fetch plan - ToOne 은 페이징 쿼리 한번, 컬렉션 plan 은 페이지 조회 후 컬렉션 조회 한번")
+    public void fetchPlan() throws Exception {
+        // given
+        List<Long> orderIds = createOrdersWithItems(30);
+        em.flush();
+        em.clear();
+        int offset = offsetOf(orderIds.get(0)) + 10;
+
+        // when, then
+        List<Order> member1 = QueryBudget.atMost(1, () -> {
+            List<Order> orders = orderRepository.findAll(OrderFetchPlan.MEMBER, offset, 10);
+            orders.forEach(o -> o.getMember().getName());
+            return orders;
+        });
+        em.clear();
+
+        QueryBudget.atMost(1, () -> {
+            List<Order> orders = orderRepository.findAll(OrderFetchPlan.MEMBER_DELIVERY, offset, 10);
+            orders.forEach(o -> o.getDelivery().getAddress().getCity());
+            return orders;
+        });
+        em.clear();
+
+        List<Order> items = QueryBudget.atMost(2, () -> {
+            List<Order> orders = orderRepository.findAll(OrderFetchPlan.ITEMS, offset, 10);
+            orders.forEach(o -> {
+                o.getMember().getName();
+                o.getDelivery().getAddress().getCity();
+                o.getOrderItems().forEach(oi -> oi.getItem().getName());
+            });
+            return orders;
+        });
+
+        // 메모리 페이징이 아니라 DB 에서 주문 단위로 잘린 페이지
+        assertEquals(orderIds.subList(10, 20), member1.stream().map(Order::getId).toList());
+        assertEquals(orderIds.subList(10, 20), items.stream().map(Order::getId).toList());
+        items.forEach(o -> assertEquals(2, o.getOrderItems().size()));
+    }
+
+    @Test
+    @DisplayName("컬렉션 페치 조인 페이징 - 주문 id 로 먼저 페이징하고 그 id 로 페치 조인")
+    public void findAllWithItemPage() throws Exception {
+        // given
+        List<Long> orderIds = createOrdersWithItems(30);
+        em.flush();
+        em.clear();
+        int offset = offsetOf(orderIds.get(0)) + 5;
+
+        // when
+        List<Order> orders = QueryBudget.atMost(2, () -> {
+            List<Order> page = orderRepository.findAllWithItem(offset, 20);
+            page.forEach(o -> {
+                o.getMember().getName();
+                o.getDelivery().getAddress().getCity();
+                o.getOrderItems().forEach(oi -> oi.getItem().getName());
+            });
+            return page;
+        });
+
+        // then
+        assertEquals(orderIds.subList(5, 25), orders.stream().map(Order::getId).toList());
+        orders.forEach(o -> assertEquals(2, o.getOrderItems().size(), "주문상품 행 수만큼 주문이 중복되면 안 된다."));
+    }
+
+    /**
+     * 주문 id 순서에서 orderId 앞에 있는 주문 수 (다른 테스트가 커밋한 주문 포함)
+     */
+    private int offsetOf(Long orderId) {
+        return em.createQuery("select count(o) from Order o where o.id < :id", Long.class)
+                .setParameter("id", orderId)
+                .getSingleResult()
+                .intValue();
+    }
+
+    private List<Long> createOrdersWithItems(int count) {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(1000);
+        em.persist(book);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book, book.getPrice(), 1), OrderItem.createOrderItem(book, book.getPrice(), 2));
+            orderRepository.save(order);
+            orderIds.add(order.getId());
+        }
+        return orderIds;
+    }
+
+    private List<Long> createOrders(int count) {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            Order order = Order.createOrder(member, delivery);
+            orderRepository.save(order);
+            orderIds.add(order.getId());
+        }
+        return orderIds;
+    }
+}
@@ -0,0 +1,127 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("2차 캐시 - 다른 트랜잭션에서 같은 회원을 조회하면 캐시 hit")
+    public void memberCacheHit() throws Exception {
+        // given
+        Long memberId = transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("cache");
+            memberRepository.save(member);
+            return member.getId();
+        });
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Member.class.getName());
+        long hitCount = region.getHitCount();
+
+        // when
+        String name1 = transactionTemplate.execute(status -> memberRepository.findOne(memberId).getName());
+        String name2 = transactionTemplate.execute(status -> memberRepository.findOne(memberId).getName());
+
+        // then
+        assertEquals("cache", name1);
+        assertEquals("cache", name2);
+        assertTrue(region.getHitCount() >= hitCount + 2, "2차 캐시에서 조회되어야 한다.");
+    }
+
+    @Test
+    @DisplayName("쿼리 캐시 - 같은 이름 조회를 반복하면 쿼리 캐시 hit")
+    public void queryCacheHit() throws Exception {
+        // given
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("queryCache");
+            memberRepository.save(member);
+        });
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate.execute(status -> memberRepository.findByName("queryCache"));
+        long hitCount = statistics.getQueryCacheHitCount();
+
+        // when
+        int size = transactionTemplate.execute(status -> memberRepository.findByName("queryCache").size());
+
+        // then
+        assertEquals(1, size);
+        assertEquals(hitCount + 1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("재고 차감 update - 차감한 상품만 캐시에서 빠지고 다른 상품과 쿼리 캐시는 유지")
+    public void stockUpdateEvictsOnlyThatItem() throws Exception {
+        // given
+        Long itemId = transactionTemplate.execute(status -> saveBook("stock", 10));
+        Long otherId = transactionTemplate.execute(status -> saveBook("other", 10));
+        transactionTemplate.executeWithoutResult(status -> {
+            itemRepository.findOneWithoutLock(itemId);
+            itemRepository.findOneWithoutLock(otherId);
+            itemRepository.findAll();
+        });
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long queryCacheHitCount = statistics.getQueryCacheHitCount();
+
+        // when
+        boolean decreased = transactionTemplate.execute(status -> itemRepository.decreaseStock(itemId, 3));
+
+        // then
+        assertTrue(decreased);
+        assertFalse(emf.getCache().contains(Item.class, itemId), "차감한 상품은 캐시에서 빠져야 한다.");
+        assertTrue(emf.getCache().contains(Item.class, otherId), "다른 상품은 캐시에 남아 있어야 한다.");
+        int stockQuantity = transactionTemplate.execute(status -> itemRepository.findOneWithoutLock(itemId).getStockQuantity());
+        assertEquals(7, stockQuantity);
+        transactionTemplate.execute(status -> itemRepository.findAll());
+        assertEquals(queryCacheHitCount + 1, statistics.getQueryCacheHitCount(), "상품 목록 쿼리 캐시가 유지되어야 한다.");
+    }
+
+    @Test
+    @DisplayName("재고 차감 update - 롤백되면 트랜잭션 안에서 캐시에 들어간 재고도 제거")
+    public void stockUpdateRollbackEvicts() throws Exception {
+        // given
+        Long itemId = transactionTemplate.execute(status -> saveBook("rollback", 10));
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            itemRepository.decreaseStock(itemId, 4);
+            itemRepository.findOneWithoutLock(itemId);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertFalse(emf.getCache().contains(Item.class, itemId));
+        int stockQuantity = transactionTemplate.execute(status -> itemRepository.findOneWithoutLock(itemId).getStockQuantity());
+        assertEquals(10, stockQuantity);
+    }
+
+    private Long saveBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemRepository.save(book);
+        return book.getId();
+    }
+}
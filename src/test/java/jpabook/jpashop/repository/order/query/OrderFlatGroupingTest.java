@@ -0,0 +1,95 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.stream.Collectors.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class OrderFlatGroupingTest {
+
+    @Test
+    public void 주문id_순서대로_묶음() throws Exception {
+        // given
+        List<OrderFlatDto> flats = createFlats(3, 2);
+
+        // when
+        List<OrderQueryDto> result = OrderFlatGrouping.group(flats);
+
+        // then
+        assertEquals(3, result.size());
+        assertEquals(List.of(1L, 2L, 3L), result.stream().map(OrderQueryDto::getOrderId).toList());
+        assertEquals(2, result.get(0).getOrderItems().size());
+        assertEquals("item1", result.get(2).getOrderItems().get(1).getItemName());
+    }
+
+    @Test
+    @DisplayName("플랫 데이터 묶기 - 기존 groupingBy 방식과 같은 결과")
+    public void groupingBy_와_같은_결과() throws Exception {
+        // given
+        List<OrderFlatDto> flats = createFlats(100, 5);
+
+        // when
+        List<OrderQueryDto> before = groupByDto(flats).stream()
+                .sorted(Comparator.comparing(OrderQueryDto::getOrderId))
+                .toList();
+        List<OrderQueryDto> after = OrderFlatGrouping.group(flats);
+
+        // then
+        assertEquals(before.stream().map(OrderQueryDto::getOrderId).toList(), after.stream().map(OrderQueryDto::getOrderId).toList());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).getOrderItems(), after.get(i).getOrderItems());
+        }
+    }
+
+    @Test
+    public void 커서로_묶어도_같은_결과() throws Exception {
+        // given
+        List<OrderFlatDto> flats = createFlats(100, 5);
+
+        // when
+        List<OrderQueryDto> streamed = new ArrayList<>();
+        OrderFlatGrouping.group(flats.iterator()).forEachRemaining(streamed::add);
+
+        // then
+        List<OrderQueryDto> grouped = OrderFlatGrouping.group(flats);
+        assertEquals(grouped.stream().map(OrderQueryDto::getOrderId).toList(), streamed.stream().map(OrderQueryDto::getOrderId).toList());
+        for (int i = 0; i < grouped.size(); i++) {
+            assertEquals(grouped.get(i).getOrderItems(), streamed.get(i).getOrderItems());
+        }
+        assertFalse(OrderFlatGrouping.group(List.<OrderFlatDto>of().iterator()).hasNext());
+    }
+
+    /**
+     * 기존 V6 방식: 행마다 OrderQueryDto 를 키로 만들어서 groupingBy
+     */
+    private List<OrderQueryDto> groupByDto(List<OrderFlatDto> flats) {
+        return flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                .collect(toList());
+    }
+
+    private List<OrderFlatDto> createFlats(int orderCount, int itemCount) {
+        Address address = new Address("서울", "강가", "123-123");
+        LocalDateTime orderDate = LocalDateTime.now();
+
+        List<OrderFlatDto> flats = new ArrayList<>(orderCount * itemCount);
+        for (long orderId = 1; orderId <= orderCount; orderId++) {
+            for (int i = 0; i < itemCount; i++) {
+                flats.add(new OrderFlatDto(orderId, "회원" + orderId, orderDate, OrderStatus.ORDER, address, "item" + i, 10000, i + 1));
+            }
+        }
+        return flats;
+    }
+}
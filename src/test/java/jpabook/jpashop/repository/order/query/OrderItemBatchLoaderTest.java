@@ -0,0 +1,37 @@
+package jpabook.jpashop.repository.order.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderItemBatchLoaderTest {
+
+    @Test
+    public void chunk_고정크기로_나누고_마지막_id로_채움() throws Exception {
+        // given
+        List<Long> orderIds = LongStream.rangeClosed(1, 300).boxed().toList();
+
+        // when
+        List<List<Long>> chunks = OrderItemBatchLoader.chunk(orderIds);
+
+        // then
+        assertEquals(2, chunks.size());
+        assertEquals(256, chunks.get(0).size());
+        assertEquals(64, chunks.get(1).size(), "남은 44개는 64 크기로 채운다.");
+        assertEquals(300L, chunks.get(1).get(63));
+    }
+
+    @Test
+    public void chunk_중복_id_제거() throws Exception {
+        // when
+        List<List<Long>> chunks = OrderItemBatchLoader.chunk(List.of(1L, 1L, 2L));
+
+        // then
+        assertEquals(1, chunks.size());
+        assertEquals(16, chunks.get(0).size());
+        assertEquals(List.of(1L, 2L, 2L), chunks.get(0).subList(0, 3));
+    }
+}
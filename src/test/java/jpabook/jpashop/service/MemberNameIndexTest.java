@@ -0,0 +1,99 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class MemberNameIndexTest {
+
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    public void 회원이름_부분검색으로_주문조회() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("색인테스트회원");
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("색인 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        Long itemId = itemService.saveItem(book);
+
+        Long orderId = orderService.order(memberId, itemId, 1);
+
+        // when
+        List<Order> byName = orderService.findOrders(search("트회", null));
+        List<Order> byNameAndStatus = orderService.findOrders(search("인테스트", OrderStatus.CANCEL));
+
+        // then
+        assertEquals(List.of(orderId), byName.stream().map(Order::getId).toList());
+        assertTrue(byNameAndStatus.isEmpty());
+    }
+
+    @Test
+    public void 이름_변경은_커밋_후_색인에_반영() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("변경전색인회원");
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("색인 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        Long orderId = orderService.order(memberId, itemService.saveItem(book), 1);
+
+        // when
+        memberService.update(memberId, "변경후색인회원");
+
+        // then
+        assertTrue(orderService.findOrders(search("변경전색인", null)).isEmpty());
+        assertEquals(List.of(orderId), orderService.findOrders(search("변경후색인", null)).stream().map(Order::getId).toList());
+    }
+
+    @Test
+    public void 이름_색인과_like_검색은_대소문자_구분없이_같은_결과() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("CaseMixed색인회원");
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("색인 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        Long orderId = orderService.order(memberId, itemService.saveItem(book), 1);
+
+        // when
+        List<Long> byIndex = orderService.findOrders(search("casemixed", null)).stream().map(Order::getId).toList();
+        List<Long> byLike = orderRepository.search(search("casemixed", null)).stream().map(Order::getId).toList();
+
+        // then
+        assertEquals(List.of(orderId), byIndex);
+        assertEquals(byIndex, byLike);
+    }
+
+    private OrderSearch search(String memberName, OrderStatus status) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberName);
+        orderSearch.setOrderStatus(status);
+        return orderSearch;
+    }
+}
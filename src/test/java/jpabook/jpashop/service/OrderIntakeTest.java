@@ -0,0 +1,124 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OrderIntakeTest {
+
+    @Autowired OrderIntake orderIntake;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 재고만큼만_주문되고_나머지는_재고부족() throws Exception {
+        // given
+        Long memberId = createMember("접수회원1");
+        Long itemId = createBook(10);
+
+        // when
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            futures.add(orderIntake.submit(memberId, itemId, 1));
+        }
+
+        // then
+        int ordered = 0;
+        int rejected = 0;
+        for (CompletableFuture<Long> future : futures) {
+            try {
+                assertNotNull(future.join());
+                ordered++;
+            } catch (CompletionException e) {
+                assertInstanceOf(NotEnoughStockException.class, e.getCause());
+                rejected++;
+            }
+        }
+        assertEquals(10, ordered);
+        assertEquals(5, rejected);
+        assertEquals(0, stockQuantity(itemId));
+    }
+
+    @Test
+    public void 없는_상품은_그_요청만_실패() throws Exception {
+        // given
+        Long memberId = createMember("접수회원2");
+        Long itemId = createBook(10);
+
+        // when
+        CompletableFuture<Long> ok1 = orderIntake.submit(memberId, itemId, 1);
+        CompletableFuture<Long> unknown = orderIntake.submit(memberId, -1L, 1);
+        CompletableFuture<Long> ok2 = orderIntake.submit(memberId, itemId, 2);
+
+        // then
+        assertNotNull(ok1.join());
+        assertNotNull(ok2.join());
+        assertThrows(CompletionException.class, unknown::join);
+        assertEquals(7, stockQuantity(itemId));
+    }
+
+    @Test
+    public void 모으는_중에_쓰기스레드가_중단되면_모은_요청은_거절() throws Exception {
+        // given (첫 요청부터 1분 동안 모으는 별도 접수기)
+        OrderIntake intake = new OrderIntake(null, 10, 10, 60_000);
+        intake.start();
+        CompletableFuture<Long> future = intake.submit(1L, 1L, 1);
+        while (intake.queued() > 0) {
+            Thread.sleep(1);
+        }
+
+        // when
+        Thread writer = (Thread) ReflectionTestUtils.getField(intake, "writer");
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        // then
+        assertTrue(future.isDone(), "모은 요청이 완료되지 않은 채 남으면 안 된다.");
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        intake.close();
+    }
+
+    private int stockQuantity(Long itemId) {
+        return new TransactionTemplate(transactionManager).execute(status -> itemRepository.findStockQuantity(itemId));
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("접수 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        return itemService.saveItem(book);
+    }
+}
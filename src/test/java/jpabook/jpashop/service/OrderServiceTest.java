@@ -8,6 +8,7 @@ import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,12 +16,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -36,6 +43,9 @@ class OrderServiceTest {
 
     @Autowired
     ItemService itemService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockBucketService stockBucketService;
+    @Autowired PlatformTransactionManager transactionManager;
 
     // 통합 테스트
     @Test
@@ -142,36 +152,116 @@ class OrderServiceTest {
     public void concurrency2() throws InterruptedException {
         // given
         int orderCount = 1;
+        int stockQuantity = itemRepository.findStockQuantity(1L);
 
         int threadCount = 20;
         ExecutorService executorService = Executors.newFixedThreadPool(5);
         CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger otherFailures = new AtomicInteger();
+
+        // when (version 충돌은 @OptimisticRetry 가 재시도하고, 재시도 한도를 넘기면 충돌 예외로 실패)
+        for (int i = 0; i < threadCount; i++) {
+            executorService.execute(() -> {
+                try {
+                    orderService.order2(1L, 1L, orderCount);
+                    successes.incrementAndGet();
+                } catch (OptimisticLockingFailureException e) {
+                    // 재시도 한도 초과
+                } catch (RuntimeException e) {
+                    otherFailures.incrementAndGet();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executorService.shutdown();
+
+        // then
+        assertEquals(0, otherFailures.get(), "충돌 외의 이유로 실패하면 안 된다.");
+        assertEquals(stockQuantity - successes.get() * orderCount, itemRepository.findStockQuantity(1L), "성공한 주문만큼만 재고가 줄어야 한다.");
+    }
+
+    @Test
+    @Rollback(value = false)
+    @DisplayName("동시성 제어 - 조건부 update")
+    public void concurrency3() throws InterruptedException {
+        // given
+        int orderCount = 1;
+        int stockQuantity = itemRepository.findStockQuantity(1L);
+
+        int threadCount = 20;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        // when
+        for (int i = 0; i < threadCount; i++) {
+            executorService.execute(() -> {
+                try {
+                    orderService.orderWithConditionalUpdate(1L, 1L, orderCount);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executorService.shutdown();
+
+        // then
+        assertEquals(stockQuantity - threadCount * orderCount, itemRepository.findStockQuantity(1L));
+    }
+
+    @Test
+    @DisplayName("동시성 제어 - 재고 버킷 (버킷 수별로 주문 수만큼만 차감)")
+    public void concurrency4() throws InterruptedException {
+        // 다른 동시성 테스트가 쓰는 1번 회원, 상품 대신 전용 회원과 상품으로 커밋하고 끝나면 지운다.
+        Long memberId = inNewTransaction(() -> createMember().getId());
+        List<Long> itemIds = new ArrayList<>();
+        try {
+            for (int buckets : new int[]{1, 4, 16}) {
+                orderWithBucketsConcurrently(memberId, buckets, itemIds);
+            }
+        } finally {
+            inNewTransaction(() -> {
+                deleteCommitted(memberId, itemIds);
+                return null;
+            });
+        }
+    }
+
+    private void orderWithBucketsConcurrently(Long memberId, int buckets, List<Long> itemIds) throws InterruptedException {
+        // given
+        int orderCount = 1;
+        int stockQuantity = 1000;
+        Long itemId = inNewTransaction(() -> {
+            Book book = new Book();
+            book.setName("인기상품");
+            book.setPrice(10000);
+            book.setStockQuantity(stockQuantity);
+            itemRepository.save(book);
+            em.flush();
+            stockBucketService.shard(book.getId(), buckets);
+            return book.getId();
+        });
+        itemIds.add(itemId);
+
+        int threadCount = 20;
+        int ordersPerThread = 10;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
 
         // when
-        AtomicInteger retryCount = new AtomicInteger();
-        int maxRetries = 10;
         for (int i = 0; i < threadCount; i++) {
             executorService.execute(() -> {
-                while (retryCount.get() < maxRetries) {
-                    try {
-                        orderService.order2(1L, 1L, orderCount);
-
-                        latch.countDown();
-
-                        break;
-                    } catch (OptimisticLockingFailureException e) {
-                        retryCount.getAndIncrement();
-                        if (retryCount.get() >= maxRetries) {
-                            System.out.println("재시도 횟수 초과");
-                            throw e;
-                        }
-                        System.out.println("락획득 재시도 합니다.");
-                        try {
-                            Thread.sleep(100);
-                        } catch (InterruptedException ex) {
-                            throw new RuntimeException(ex);
-                        }
+                try {
+                    for (int j = 0; j < ordersPerThread; j++) {
+                        orderService.orderWithBuckets(memberId, itemId, orderCount);
                     }
+                } finally {
+                    latch.countDown();
                 }
             });
         }
@@ -180,8 +270,133 @@ class OrderServiceTest {
         executorService.shutdown();
 
         // then
-        Item result = itemService.findOne(1L);
-        assertEquals(result.getStockQuantity(), 80);
+        assertEquals(stockQuantity - threadCount * ordersPerThread * orderCount, stockBucketService.totalStock(itemId));
+    }
+
+    /**
+     * 커밋한 회원의 주문(주문상품, 배송, 조회모델)과 상품(재고 버킷), 회원을 삭제
+     */
+    private void deleteCommitted(Long memberId, List<Long> itemIds) {
+        em.createQuery("delete from OrderView v where v.memberId = :memberId")
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+        em.createQuery("select o from Order o where o.member.id = :memberId", Order.class)
+                .setParameter("memberId", memberId)
+                .getResultList()
+                .forEach(em::remove);
+        em.flush();
+        if (!itemIds.isEmpty()) {
+            em.createQuery("delete from StockBucket b where b.item.id in :itemIds")
+                    .setParameter("itemIds", itemIds)
+                    .executeUpdate();
+            em.createQuery("delete from Item i where i.id in :itemIds")
+                    .setParameter("itemIds", itemIds)
+                    .executeUpdate();
+        }
+        em.remove(em.find(Member.class, memberId));
+    }
+
+    @Test
+    public void 상품주문_재고버킷_흩어진재고는_다시나눠서_주문() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = getBook("시골 JPA", 10000, 10);
+        em.flush();
+        stockBucketService.shard(book.getId(), 4); // 3, 3, 2, 2
+
+        // when
+        orderService.orderWithBuckets(member.getId(), book.getId(), 5);
+        NotEnoughStockException e = assertThrows(NotEnoughStockException.class, () -> orderService.orderWithBuckets(member.getId(), book.getId(), 6));
+
+        // then
+        assertEquals(e.getMessage(), "need more stock");
+        assertEquals(5, stockBucketService.totalStock(book.getId()));
+    }
+
+    @Test
+    public void 상품주문_조건부update_재고수량초과() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = getBook("시골 JPA", 10000, 10);
+        em.flush();
+
+        // when
+        orderService.orderWithConditionalUpdate(member.getId(), book.getId(), 10);
+        NotEnoughStockException e = assertThrows(NotEnoughStockException.class, () -> orderService.orderWithConditionalUpdate(member.getId(), book.getId(), 1));
+
+        // then
+        assertEquals(e.getMessage(), "need more stock");
+        assertEquals(0, itemRepository.findStockQuantity(book.getId()));
+    }
+
+    @Test
+    public void 장바구니주문() throws Exception {
+        // given
+        Member member = createMember();
+        Book book1 = getBook("시골 JPA", 10000, 10);
+        Book book2 = getBook("도시 JPA", 20000, 10);
+        em.flush();
+
+        // when
+        Long orderId = orderService.order(member.getId(), List.of(
+                new OrderLine(book2.getId(), 3),
+                new OrderLine(book1.getId(), 1),
+                new OrderLine(book1.getId(), 1)));
+
+        // then
+        Order getOrder = orderRepository.findOne(orderId);
+
+        assertEquals(2, getOrder.getOrderItems().size(), "같은 상품은 한 줄로 합쳐야 한다.");
+        assertEquals(10000 * 2 + 20000 * 3, getOrder.getTotalPrice());
+        assertEquals(8, book1.getStockQuantity());
+        assertEquals(7, book2.getStockQuantity());
+    }
+
+    @Test
+    public void 장바구니주문_재고수량초과() throws Exception {
+        // given
+        Member member = createMember();
+        Book book1 = getBook("시골 JPA", 10000, 10);
+        Book book2 = getBook("도시 JPA", 20000, 1);
+        em.flush();
+
+        // when
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(member.getId(), List.of(
+                new OrderLine(book1.getId(), 5),
+                new OrderLine(book2.getId(), 2))));
+
+        // then
+        assertEquals(10, book1.getStockQuantity(), "한 줄이라도 재고가 부족하면 아무것도 차감하지 않는다.");
+    }
+
+    @Test
+    @DisplayName("대량 주문 - 주문마다 id 가 생기고 주문 수량만큼 재고 차감")
+    public void bulkOrder() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = getBook("시골 JPA", 10000, 100_000);
+        em.flush();
+
+        int orderCount = 1000;
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            commands.add(new OrderCommand(member.getId(), book.getId(), 1));
+        }
+
+        // when
+        List<Long> orderIds = orderService.bulkOrder(commands);
+        em.flush();
+
+        // then
+        assertEquals(orderCount, orderIds.size());
+        assertEquals(orderCount, orderIds.stream().distinct().count());
+        assertEquals(100_000 - orderCount, book.getStockQuantity(), "주문 수량만큼 재고가 줄어야 한다.");
+    }
+
+    private <T> T inNewTransaction(Supplier<T> action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate.execute(status -> action.get());
     }
 
     private Member createMember() {
@@ -0,0 +1,120 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.view.OrderView;
+import jpabook.jpashop.repository.order.view.OrderViewRepository;
+import jpabook.jpashop.support.query.QueryStatsHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OrderViewProjectorTest {
+
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderViewRepository orderViewRepository;
+    @Autowired OrderViewProjector orderViewProjector;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 주문_취소_이름변경이_조회모델에_반영() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("조회모델회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("조회모델 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        Long itemId = itemService.saveItem(book);
+
+        // when
+        Long orderId = orderService.order(memberId, itemId, 2);
+
+        // then
+        OrderView orderView = find(orderId);
+        assertNotNull(orderView, "주문하면 조회모델이 같이 생성되어야 한다.");
+        assertEquals(memberId, orderView.getMemberId());
+        assertEquals("조회모델회원", orderView.getMemberName());
+        assertEquals(OrderStatus.ORDER, orderView.getStatus());
+        assertEquals("서울", orderView.getAddress().getCity());
+        assertEquals(20000, orderView.getTotalPrice());
+        assertEquals(2, orderView.getItemCount());
+        assertTrue(orderView.getOrderItems().contains("\"itemName\":\"조회모델 BOOK\""));
+
+        // when
+        orderService.cancleOrder(orderId);
+        memberService.update(memberId, "바뀐조회모델회원");
+
+        // then
+        orderView = find(orderId);
+        assertEquals(OrderStatus.CANCEL, orderView.getStatus(), "주문 취소가 반영되어야 한다.");
+        assertEquals("바뀐조회모델회원", orderView.getMemberName(), "회원 이름 변경이 반영되어야 한다.");
+    }
+
+    @Test
+    public void 묶음주문은_조회모델을_조회하지_않고_insert() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("묶음조회모델회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("묶음조회모델 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        Long itemId = itemService.saveItem(book);
+
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            commands.add(new OrderCommand(memberId, itemId, 1));
+        }
+
+        // when: 커밋 직전 조회모델 반영까지 포함해서 측정
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        QueryStatsHolder.Measured<List<Long>> measured = QueryStatsHolder.measure(() -> tx.execute(status -> orderService.bulkOrder(commands)));
+
+        // then
+        assertTrue(measured.stats().repeatedStatements(10).keySet().stream().noneMatch(sql -> sql.contains("order_view")),
+                "주문마다 조회모델 select 가 나가면 안 된다. " + measured.stats().repeatedStatements(10).keySet());
+        for (Long orderId : measured.result()) {
+            assertNotNull(find(orderId));
+        }
+    }
+
+    @Test
+    public void 재생성하면_주문_수만큼_조회모델() throws Exception {
+        // when
+        long rebuilt = orderViewProjector.rebuild();
+
+        // then
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long orders = tx.execute(status -> (long) orderRepository.findIdsAfter(0L, Integer.MAX_VALUE).size());
+        long views = tx.execute(status -> orderViewRepository.count());
+        assertEquals(orders, rebuilt);
+        assertEquals(orders, views);
+    }
+
+    private OrderView find(Long orderId) {
+        return new TransactionTemplate(transactionManager).execute(status -> orderViewRepository.findOne(orderId));
+    }
+}
@@ -0,0 +1,160 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 예약 주문을 실제로 커밋해야 하므로 트랜잭션 롤백 대신 전용 DB 컨텍스트 사용
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stock-ledger")
+class StockLedgerTest {
+
+    @Autowired OrderService orderService;
+    @Autowired StockLedger stockLedger;
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockReservationRepository stockReservationRepository;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 상품주문_재고예약() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        // when
+        orderService.orderWithReservation(memberId, itemId, 2);
+        assertThrows(NotEnoughStockException.class, () -> orderService.orderWithReservation(memberId, itemId, 9));
+
+        // then
+        assertEquals(8, available(stockLedger, itemId), "예약한 수량만큼 장부 재고가 줄어야 한다.");
+        assertEquals(10, stockQuantity(itemId), "반영 전에는 DB 재고가 그대로다.");
+
+        stockLedger.flush();
+        assertEquals(8, stockQuantity(itemId), "반영 후에는 DB 재고가 줄어야 한다.");
+        assertEquals(0, inTransaction(() -> stockReservationRepository.sumCount(itemId)), "반영한 예약 기록은 지워야 한다.");
+        assertEquals(8, available(stockLedger, itemId));
+    }
+
+    @Test
+    public void 상품주문_재고예약_상품은_다른경로로_주문불가() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        orderService.orderWithReservation(memberId, itemId, 10);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> orderService.order(memberId, List.of(new OrderLine(itemId, 10))));
+        assertThrows(IllegalStateException.class, () -> orderService.orderWithConditionalUpdate(memberId, itemId, 10));
+
+        // then
+        stockLedger.flush();
+        assertEquals(0, stockQuantity(itemId), "장부가 판 만큼만 DB 재고가 줄어야 한다.");
+    }
+
+    @Test
+    public void 상품주문_재고예약_반영할_재고가_모자라면_0까지만() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        orderService.orderWithReservation(memberId, itemId, 8);
+
+        // 장부 밖에서 재고를 줄임 (상품 수정)
+        inTransaction(() -> em.createQuery("update Item i set i.stockQuantity = 5 where i.id = :id")
+                .setParameter("id", itemId)
+                .executeUpdate());
+
+        // when
+        stockLedger.flush();
+
+        // then
+        assertEquals(0, stockQuantity(itemId), "DB 재고가 음수가 되면 안 된다.");
+        assertEquals(0, available(stockLedger, itemId));
+    }
+
+    @Test
+    public void 커밋되지_않은_예약은_반영하지_않음() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        // when: 주문 트랜잭션이 끝나기 전에 반영
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.orderWithReservation(memberId, itemId, 3);
+            stockLedger.flush();
+            assertEquals(10, itemRepository.findStockQuantity(itemId), "커밋되지 않은 예약은 DB 재고에 반영하면 안 된다.");
+            status.setRollbackOnly();
+        });
+        stockLedger.flush();
+
+        // then
+        assertEquals(10, stockQuantity(itemId));
+        assertEquals(10, available(stockLedger, itemId), "롤백된 예약은 장부에서도 되돌려야 한다.");
+    }
+
+    @Test
+    public void 반영_전에_재기동해도_커밋된_예약은_반영() throws Exception {
+        // given: 예약 주문은 커밋됐지만 반영 전에 서버가 죽음
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        orderService.orderWithReservation(memberId, itemId, 4);
+
+        // when: 메모리가 빈 장부로 다시 시작
+        StockLedger restarted = new StockLedger(itemRepository, stockReservationRepository, transactionManager);
+        assertEquals(6, available(restarted, itemId), "반영되지 않은 예약 기록만큼 뺀 재고로 시작해야 한다.");
+        restarted.reconcileOnStartup();
+
+        // then
+        assertEquals(6, stockQuantity(itemId), "남은 예약 기록을 반영해야 한다.");
+        stockLedger.flush();
+        assertEquals(6, stockQuantity(itemId), "같은 예약을 두 번 반영하면 안 된다.");
+        assertEquals(6, available(stockLedger, itemId));
+    }
+
+    private Long createMember() {
+        return inTransaction(() -> {
+            Member member = new Member();
+            member.setName("예약회원");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    private Long createBook(int stockQuantity) {
+        return inTransaction(() -> {
+            Book book = new Book();
+            book.setName("예약상품");
+            book.setPrice(10000);
+            book.setStockQuantity(stockQuantity);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+
+    private int stockQuantity(Long itemId) {
+        return inTransaction(() -> itemRepository.findStockQuantity(itemId));
+    }
+
+    private long available(StockLedger ledger, Long itemId) {
+        return inTransaction(() -> ledger.available(itemId));
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedStockTest {
+
+    @Test
+    public void 재고_부족하면_차감하지_않음() throws Exception {
+        // given
+        StripedStock stock = new StripedStock(10, 4);
+
+        // when
+        boolean removed = stock.tryRemove(11);
+
+        // then
+        assertFalse(removed);
+        assertEquals(10, stock.available());
+        assertTrue(stock.tryRemove(10), "여러 칸에 나뉜 재고를 모아서 차감할 수 있어야 한다.");
+        assertEquals(0, stock.available());
+    }
+
+    @Test
+    @DisplayName("동시 차감 - 재고보다 많이 팔리지 않음")
+    public void concurrency() throws Exception {
+        // given
+        int quantity = 100_000;
+        StripedStock stock = new StripedStock(quantity);
+
+        int threadCount = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicLong sold = new AtomicLong();
+
+        // when
+        for (int i = 0; i < threadCount; i++) {
+            executorService.execute(() -> {
+                try {
+                    while (stock.tryRemove(3)) {
+                        sold.addAndGet(3);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executorService.shutdown();
+
+        // then
+        assertEquals(quantity, sold.get() + stock.available());
+        assertTrue(stock.available() < 3);
+    }
+}
@@ -0,0 +1,105 @@
+package jpabook.jpashop.support.coalesce;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void 동시_요청은_한번만_조회() throws Exception {
+        // given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", meterRegistry, Duration.ZERO, Duration.ZERO, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int clients = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+
+        // when: 첫 조회가 끝나지 않은 동안 나머지 요청이 들어온다.
+        List<Future<Integer>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.get("all", () -> {
+            loading.countDown();
+            await(release);
+            return loads.incrementAndGet();
+        })));
+        loading.await();
+        for (int i = 1; i < clients; i++) {
+            results.add(executor.submit(() -> singleFlight.get("all", loads::incrementAndGet)));
+        }
+        while (meterRegistry.counter("single-flight.requests", "name", "test", "outcome", "coalesced").count() < clients - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        // then
+        for (Future<Integer> result : results) {
+            assertEquals(1, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals((clients - 1) / (double) clients, singleFlight.coalescingRatio(), 0.0001);
+
+        // ttl 이 없으면 끝난 조회는 재사용하지 않는다.
+        assertEquals(2, singleFlight.get("all", loads::incrementAndGet));
+        executor.shutdown();
+    }
+
+    @Test
+    public void 조회_예외는_같이_받고_다음_요청은_다시_조회() throws Exception {
+        // given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", meterRegistry, Duration.ofMinutes(1), Duration.ZERO, Runnable::run);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> singleFlight.get("all", () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        // then
+        assertEquals(1, singleFlight.get("all", () -> 1));
+        assertEquals(1, singleFlight.get("all", () -> 2), "ttl 동안은 재사용");
+    }
+
+    @Test
+    public void ttl_지나면_이전_결과를_주고_백그라운드에서_갱신() throws Exception {
+        // given
+        List<Runnable> refreshes = new ArrayList<>();
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", meterRegistry, Duration.ZERO, Duration.ofMinutes(1), refreshes::add);
+        AtomicInteger loads = new AtomicInteger();
+        singleFlight.get("all", loads::incrementAndGet);
+
+        // when
+        Integer first = singleFlight.get("all", loads::incrementAndGet);
+        Integer second = singleFlight.get("all", loads::incrementAndGet);
+
+        // then: 갱신은 한 번만 예약되고, 끝나기 전까지는 이전 결과
+        assertEquals(1, first);
+        assertEquals(1, second);
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        assertEquals(2, singleFlight.get("all", loads::incrementAndGet));
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
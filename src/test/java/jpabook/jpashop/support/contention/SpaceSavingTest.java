@@ -0,0 +1,62 @@
+package jpabook.jpashop.support.contention;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    public void 자리가_남으면_정확한_합() throws Exception {
+        // given
+        SpaceSaving sketch = new SpaceSaving(4);
+
+        // when
+        sketch.add(1, 5);
+        sketch.add(2, 3);
+        sketch.add(1, 2);
+
+        // then
+        assertEquals(List.of(new SpaceSaving.Entry(1, 7, 0), new SpaceSaving.Entry(2, 3, 0)), sketch.top(10));
+        assertEquals(10, sketch.total());
+    }
+
+    @Test
+    public void 가득_차면_가장_작은_키를_교체() throws Exception {
+        // given
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.add(1, 10);
+        sketch.add(2, 3);
+
+        // when
+        sketch.add(3, 1);
+
+        // then
+        assertEquals(List.of(new SpaceSaving.Entry(1, 10, 0), new SpaceSaving.Entry(3, 4, 3)), sketch.top(10));
+    }
+
+    @Test
+    public void 긴_꼬리_속의_인기_키() throws Exception {
+        // given: 상품 10000 개에 고르게 흩어진 요청 사이에 인기 상품 3 개
+        SpaceSaving sketch = new SpaceSaving(32);
+        Random random = new Random(1);
+        long hottest = 0;
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            int r = random.nextInt(100);
+            long key = r < 10 ? 1 : r < 18 ? 2 : r < 24 ? 3 : 100 + random.nextInt(10_000);
+            sketch.add(key, 1);
+            hottest += key == 1 ? 1 : 0;
+        }
+
+        // then
+        List<SpaceSaving.Entry> top = sketch.top(3);
+        assertEquals(List.of(1L, 2L, 3L), top.stream().map(SpaceSaving.Entry::key).toList());
+        assertTrue(top.get(0).count() - top.get(0).error() <= hottest && hottest <= top.get(0).count());
+        assertEquals(100_000, sketch.total());
+    }
+}
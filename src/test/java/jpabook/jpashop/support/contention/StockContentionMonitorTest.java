@@ -0,0 +1,63 @@
+package jpabook.jpashop.support.contention;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.StaleObjectStateException;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static jpabook.jpashop.support.contention.StockContentionMonitor.Kind.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockContentionMonitorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    StockContentionMonitor monitor = new StockContentionMonitor(meterRegistry, 16);
+
+    @Test
+    public void 락_대기와_타임아웃() throws Exception {
+        // when
+        monitor.lockAcquired(List.of(1L, 2L), TimeUnit.MILLISECONDS.toNanos(5));
+        monitor.lockAcquired(List.of(1L), TimeUnit.MILLISECONDS.toNanos(20));
+        monitor.lockTimedOut(List.of(2L), TimeUnit.SECONDS.toNanos(10));
+
+        // then
+        assertEquals(2L, monitor.top(LOCK_WAIT, 1).get(0).key());
+        assertEquals(25_000, monitor.top(LOCK_WAIT, 2).get(1).count());
+        assertEquals(List.of(new SpaceSaving.Entry(2, 1, 0)), monitor.top(LOCK_TIMEOUT, 10));
+        assertEquals(2, meterRegistry.get("stock.lock.wait").tag("outcome", "acquired").timer().count());
+        assertEquals(1, meterRegistry.get("stock.lock.wait").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    public void 충돌과_재시도_상품별() throws Exception {
+        // given
+        Throwable conflict = new ObjectOptimisticLockingFailureException(Book.class.getName(), 7L, "conflict",
+                new StaleObjectStateException(Book.class.getName(), 7L));
+
+        // when
+        monitor.onConflict("OrderService.order2", 1, conflict, true);
+        monitor.onConflict("OrderService.order2", 2, conflict, false);
+
+        // then
+        assertEquals(List.of(new SpaceSaving.Entry(7, 2, 0)), monitor.top(CONFLICT, 10));
+        assertEquals(List.of(new SpaceSaving.Entry(7, 1, 0)), monitor.top(RETRY, 10));
+        assertEquals(1, meterRegistry.get("stock.retries").tag("attempt", "1").counter().count());
+        assertEquals(1, meterRegistry.get("stock.conflicts").tag("attempt", "2").counter().count());
+    }
+
+    @Test
+    public void 예외에서_상품_id() throws Exception {
+        Book book = new Book();
+        book.setId(3L);
+
+        assertEquals(3L, StockContentionMonitor.itemId(new RuntimeException(new OptimisticLockException("conflict", null, book))));
+        assertEquals(5L, StockContentionMonitor.itemId(new StaleObjectStateException(Book.class.getName(), 5L)));
+        assertNull(StockContentionMonitor.itemId(new StaleObjectStateException("jpabook.jpashop.domain.Order", 5L)));
+        assertNull(StockContentionMonitor.itemId(new IllegalStateException()));
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.support.contention;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static jpabook.jpashop.support.contention.StockContentionMonitor.Kind.LOCK_WAIT;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class StockLockAspectTest {
+
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockContentionMonitor monitor;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 비관적_락_조회를_상품별로_기록() throws Exception {
+        // given
+        Book book = new Book();
+        book.setName("JPA");
+        book.setStockQuantity(10);
+        em.persist(book);
+        em.flush();
+        em.clear();
+
+        // when
+        itemRepository.findOne(book.getId());
+        itemRepository.findAllForUpdate(List.of(book.getId()));
+
+        // then
+        assertTrue(monitor.top(LOCK_WAIT, 64).stream().anyMatch(e -> e.key() == book.getId()));
+    }
+}
@@ -0,0 +1,75 @@
+package jpabook.jpashop.support.dataset;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DatasetGeneratorTest {
+
+    @Autowired DatasetGenerator datasetGenerator;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 설정한_수만큼_생성() throws Exception {
+        // given
+        DatasetProperties properties = properties("gen-count-", 4);
+
+        // when
+        DatasetGenerator.Result result = datasetGenerator.generate(properties);
+
+        // then
+        assertEquals(10, result.members());
+        assertEquals(10, result.items());
+        assertEquals(250, result.orders());
+        assertEquals(250, count("select count(o) from Order o join o.member m where m.name like 'gen-count-%'"));
+        assertEquals(result.orderItems(), count("select count(oi) from OrderItem oi join oi.order o join o.member m where m.name like 'gen-count-%'"));
+        assertTrue(result.orderItems() >= 250 && result.orderItems() <= 250 * 3);
+    }
+
+    @Test
+    public void 같은_seed_면_스레드_수와_관계없이_같은_데이터() throws Exception {
+        // when
+        datasetGenerator.generate(properties("gen-a-", 1));
+        datasetGenerator.generate(properties("gen-b-", 4));
+
+        // then
+        assertEquals(total("gen-a-%"), total("gen-b-%"));
+    }
+
+    private DatasetProperties properties(String namePrefix, int threads) {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setNamePrefix(namePrefix);
+        properties.setMembers(10);
+        properties.setBooks(5);
+        properties.setAlbums(3);
+        properties.setMovies(2);
+        properties.setCategories(3);
+        properties.setItemsPerCategory(2);
+        properties.setOrders(250);
+        properties.setMaxItemsPerOrder(3);
+        properties.setChunkSize(40);
+        properties.setThreads(threads);
+        return properties;
+    }
+
+    private long count(String jpql) {
+        return em.createQuery(jpql, Long.class).getSingleResult();
+    }
+
+    private String total(String namePattern) {
+        return em.createQuery("select count(oi), sum(oi.orderPrice * oi.count), sum(length(m.name) * oi.count), min(o.orderDate), max(o.orderDate)" +
+                        " from OrderItem oi join oi.order o join o.member m where m.name like :name", Object[].class)
+                .setParameter("name", namePattern)
+                .getResultList()
+                .stream()
+                .map(Arrays::toString)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.support.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Test
+    public void 허가_수보다_많이_빌리면_대기후_실패() throws Exception {
+        // given
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(h2(), 2, 50);
+
+        // when
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        // then
+        assertEquals(0, dataSource.availablePermits());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close(); // 두 번 닫아도 한 번만 반납
+        assertEquals(1, dataSource.availablePermits());
+
+        try (Connection third = dataSource.getConnection()) {
+            assertTrue(third.isValid(1));
+        }
+        second.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    private DriverManagerDataSource h2() {
+        return new DriverManagerDataSource("jdbc:h2:mem:connection-limit", "sa", "");
+    }
+}
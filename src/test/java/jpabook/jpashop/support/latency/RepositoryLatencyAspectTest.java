@@ -0,0 +1,38 @@
+package jpabook.jpashop.support.latency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class RepositoryLatencyAspectTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void 리포지토리_호출마다_기록() throws Exception {
+        // given
+        long before = count();
+
+        // when
+        memberRepository.findByName("회원1");
+        memberRepository.findByName("회원2");
+
+        // then
+        assertEquals(before + 2, count());
+    }
+
+    private long count() {
+        var timer = meterRegistry.find(RepositoryLatencyRecorder.METRIC)
+                .tags("repository", "MemberRepository", "method", "findByName")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
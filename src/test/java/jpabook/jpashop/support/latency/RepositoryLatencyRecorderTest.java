@@ -0,0 +1,41 @@
+package jpabook.jpashop.support.latency;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryLatencyRecorderTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RepositoryLatencyRecorder recorder = new RepositoryLatencyRecorder(meterRegistry, 100, 0);
+    RepositoryLatencyEndpoint endpoint = new RepositoryLatencyEndpoint(meterRegistry);
+
+    @Test
+    public void 메서드별_지연시간_분포() throws Exception {
+        // when
+        for (int i = 1; i <= 100; i++) {
+            recorder.record("OrderRepository", "findOne", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        recorder.record("MemberRepository", "findAll", TimeUnit.MILLISECONDS.toNanos(3));
+
+        // then
+        Timer timer = meterRegistry.get(RepositoryLatencyRecorder.METRIC)
+                .tags("repository", "OrderRepository", "method", "findOne")
+                .timer();
+        assertEquals(100, timer.count());
+
+        Map<String, Map<String, Object>> latencies = endpoint.latencies();
+        assertEquals(2, latencies.size());
+
+        Map<String, Object> findOne = latencies.get("OrderRepository.findOne");
+        assertEquals(100L, findOne.get("count"));
+        assertEquals(100.0, (double) findOne.get("max"), 0.001);
+        assertEquals(50.0, (double) findOne.get("p50"), 2.0);
+        assertEquals(99.0, (double) findOne.get("p99"), 2.0);
+    }
+}
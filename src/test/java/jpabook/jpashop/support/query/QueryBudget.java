@@ -0,0 +1,62 @@
+package jpabook.jpashop.support.query;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SQL 예산 검증
+ * <pre>
+ * mockMvc.perform(get("/api/v6/orders"))
+ *         .andExpect(QueryBudget.atMost(1))
+ *         .andExpect(QueryBudget.noNPlusOne());
+ *
+ * QueryBudget.atMost(2, () -> orderQueryRepository.findAllByDto_optimization());
+ * </pre>
+ */
+public final class QueryBudget {
+
+    public static final int DEFAULT_N_PLUS_ONE_THRESHOLD = 3;
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> assertAtMost(statements, stats(result));
+    }
+
+    public static ResultMatcher noNPlusOne() {
+        return noNPlusOne(DEFAULT_N_PLUS_ONE_THRESHOLD);
+    }
+
+    public static ResultMatcher noNPlusOne(int threshold) {
+        return result -> assertNoNPlusOne(threshold, stats(result));
+    }
+
+    public static <T> T atMost(int statements, Supplier<T> action) {
+        QueryStatsHolder.Measured<T> measured = QueryStatsHolder.measure(action);
+        assertAtMost(statements, measured.stats());
+        return measured.result();
+    }
+
+    public static QueryStats stats(MvcResult result) {
+        QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStats.ATTRIBUTE);
+        assertNotNull(stats, "QueryStatsFilter 가 적용되지 않았습니다.");
+        return stats;
+    }
+
+    private static void assertAtMost(int statements, QueryStats stats) {
+        assertTrue(stats.getStatementCount() <= statements,
+                "SQL 예산 초과. budget=" + statements + ", " + stats + ", repeated=" + stats.repeatedStatements(2));
+    }
+
+    private static void assertNoNPlusOne(int threshold, QueryStats stats) {
+        Map<String, Integer> repeated = stats.repeatedStatements(threshold);
+        assertTrue(repeated.isEmpty(), "N+1 의심. " + stats + ", repeated=" + repeated);
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.support.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryStatsTest {
+
+    @Test
+    public void 같은_SQL_반복은_N플러스1_의심() throws Exception {
+        // given
+        QueryStats stats = new QueryStats();
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            stats.statementPrepared("select m1_0.member_id,m1_0.name from member m1_0 where m1_0.member_id=?");
+            stats.statementPrepared("select oi1_0.order_id from order_item oi1_0 where oi1_0.order_id in (?)");
+        }
+
+        // then
+        Map<String, Integer> repeated = stats.repeatedStatements(3);
+        assertEquals(2, repeated.size(), "지연 로딩처럼 파라미터 하나인 SQL 반복은 잡아야 한다.");
+    }
+
+    @Test
+    public void 묶음_IN_조회_반복은_N플러스1_아님() throws Exception {
+        // given: 256 개짜리 chunk 를 여러 번 재사용 (주문 512 건 초과)
+        QueryStats stats = new QueryStats();
+        String chunk = "select oi1_0.order_id from order_item oi1_0 join item i1_0 on i1_0.item_id=oi1_0.item_id " +
+                "where oi1_0.order_id in (" + "?,".repeat(255) + "?)";
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            stats.statementPrepared(chunk);
+        }
+
+        // then
+        assertEquals(3, stats.getStatementCount());
+        assertTrue(stats.repeatedStatements(3).isEmpty(), "묶음 조회는 반복되어도 N+1 이 아니다.");
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.support.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryExecutorTest {
+
+    List<String> conflicts = new ArrayList<>();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RetryExecutor retryExecutor = new RetryExecutor(meterRegistry, List.of((name, attempt, conflict, retrying) -> conflicts.add(attempt + ":" + retrying)));
+
+    @Test
+    public void 충돌나면_재시도() throws Throwable {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Object result = retryExecutor.execute("test", policy(), () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "ok";
+        });
+
+        // then
+        assertEquals("ok", result);
+        assertEquals(3, meterRegistry.counter("retry.attempts", "name", "test").count());
+        assertEquals(2, meterRegistry.counter("retry.conflicts", "name", "test").count());
+        assertEquals(0, meterRegistry.counter("retry.give-ups", "name", "test").count());
+        assertEquals(List.of("1:true", "2:true"), conflicts);
+    }
+
+    @Test
+    public void 최대_횟수_넘으면_포기() throws Throwable {
+        // when
+        assertThrows(OptimisticLockingFailureException.class, () -> retryExecutor.execute("test", policy(), () -> {
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+
+        // then
+        assertEquals(10, meterRegistry.counter("retry.attempts", "name", "test").count());
+        assertEquals(1, meterRegistry.counter("retry.give-ups", "name", "test").count());
+        assertEquals("10:false", conflicts.get(conflicts.size() - 1));
+    }
+
+    @Test
+    public void 재시도_대상이_아니면_바로_실패() throws Throwable {
+        // when
+        assertThrows(IllegalStateException.class, () -> retryExecutor.execute("test", policy(), () -> {
+            throw new IllegalStateException();
+        }));
+
+        // then
+        assertEquals(1, meterRegistry.counter("retry.attempts", "name", "test").count());
+    }
+
+    @OptimisticRetry
+    private OptimisticRetry policy() throws NoSuchMethodException {
+        return getClass().getDeclaredMethod("policy").getAnnotation(OptimisticRetry.class);
+    }
+}
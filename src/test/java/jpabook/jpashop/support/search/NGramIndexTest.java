@@ -0,0 +1,55 @@
+package jpabook.jpashop.support.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NGramIndexTest {
+
+    @Test
+    public void 부분_문자열_검색() throws Exception {
+        // given
+        NGramIndex index = new NGramIndex();
+        index.put(1L, "김철수");
+        index.put(2L, "김영희");
+        index.put(3L, "Kim Younghee");
+        index.put(4L, "박철수호");
+
+        // then
+        assertArrayEquals(new long[]{1L, 4L}, index.search("철수"));
+        assertArrayEquals(new long[]{1L}, index.search("김철수"));
+        assertArrayEquals(new long[]{4L}, index.search("철수호"));
+        assertArrayEquals(new long[]{3L}, index.search("YOUNG"));
+        assertArrayEquals(new long[]{}, index.search("수철김"));
+        assertArrayEquals(new long[]{}, index.search(""));
+        assertArrayEquals(new long[]{1L, 2L}, index.search("김"));
+    }
+
+    @Test
+    public void 이름_변경_삭제() throws Exception {
+        // given
+        NGramIndex index = new NGramIndex();
+        index.put(1L, "회원하나");
+        index.put(2L, "회원둘");
+
+        // when
+        index.put(1L, "멤버하나");
+        index.remove(2L);
+
+        // then
+        assertArrayEquals(new long[]{}, index.search("회원"));
+        assertArrayEquals(new long[]{1L}, index.search("멤버하"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void trigram_은_모두_있지만_순서가_다르면_제외() throws Exception {
+        // given
+        NGramIndex index = new NGramIndex();
+        index.put(1L, "abcxbcd");
+
+        // then
+        assertArrayEquals(new long[]{}, index.search("abcd"));
+        assertArrayEquals(new long[]{1L}, index.search("xbcd"));
+    }
+}